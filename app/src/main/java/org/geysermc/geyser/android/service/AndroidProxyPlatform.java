@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.service;
+
+import android.content.Context;
+
+import org.geysermc.geyser.android.R;
+import org.geysermc.geyser.android.proxy.ProxyMessage;
+import org.geysermc.geyser.android.proxy.ProxyPlatform;
+import org.geysermc.geyser.android.utils.AndroidUtils;
+
+import java.nio.file.Path;
+
+/**
+ * The {@link ProxyPlatform} used when running the proxy inside the app
+ */
+public class AndroidProxyPlatform implements ProxyPlatform {
+
+    private final Context ctx;
+
+    public AndroidProxyPlatform(Context ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public String getMessage(ProxyMessage message, Object... args) {
+        int resId = switch (message) {
+            case STARTING -> R.string.proxy_starting;
+            case STARTED -> R.string.proxy_started;
+            case SHUTDOWN -> R.string.proxy_shutdown;
+            case DRAINING -> R.string.proxy_draining;
+            case CLOSING -> R.string.proxy_closing;
+            case SHUTDOWN_DONE -> R.string.proxy_shutdown_done;
+            case MOTD -> R.string.menu_proxy;
+        };
+
+        return ctx.getResources().getString(resId, args);
+    }
+
+    @Override
+    public Path getStoragePath() {
+        return AndroidUtils.getStoragePath(ctx);
+    }
+}
@@ -41,9 +41,18 @@ import androidx.preference.PreferenceManager;
 
 import org.geysermc.geyser.android.MainActivity;
 import org.geysermc.geyser.android.R;
+import org.geysermc.geyser.android.proxy.ProxyConfig;
+import org.geysermc.geyser.android.proxy.ProxyLogger;
 import org.geysermc.geyser.android.proxy.ProxyServer;
+import org.geysermc.geyser.android.proxy.network.BackendAddress;
+import org.geysermc.geyser.android.proxy.network.BalancePolicy;
 import org.geysermc.geyser.android.utils.EventListeners;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 public class ProxyService extends Service {
 
     public final String ACTION_STOP_SERVICE = "STOP_PROXY_SERVICE";
@@ -52,6 +61,16 @@ public class ProxyService extends Service {
 
     public static boolean finishedStartup;
 
+    private static final long CONFIG_DEBOUNCE_MILLIS = 1000;
+
+    // Held here as the preferences only keep a weak reference to listeners
+    private final SharedPreferences.OnSharedPreferenceChangeListener preferenceListener = this::onPreferenceChanged;
+
+    private ScheduledFuture<?> pendingConfig;
+
+    // The settings are read before the proxy exists, so it can't use the proxy's logger
+    private final ProxyLogger proxyLogger = new ProxyLogger();
+
     public static EventListeners.StartedEventListener listener;
 
     @Override
@@ -82,14 +101,129 @@ public class ProxyService extends Service {
         startForeground(NOTIFCATION_ID, notification);
 
         SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(getApplicationContext());
-        proxy = new ProxyServer(sharedPreferences.getString("proxy_address", getResources().getString(R.string.default_ip)), Integer.parseInt(sharedPreferences.getString("proxy_port", getResources().getString(R.string.default_port_be))), this);
+        ProxyLogger.setCapacity(readLogCapacity(sharedPreferences));
+        ProxyConfig config;
+        try {
+            config = readConfig(sharedPreferences);
+        } catch (IllegalArgumentException e) {
+            // Start on the defaults rather than not at all, the log says what to fix
+            proxyLogger.warning("Invalid proxy settings, using the defaults: {}", e.getMessage());
+            config = ProxyConfig.of(List.of(new BackendAddress(getResources().getString(R.string.default_ip),
+                    Integer.parseInt(getResources().getString(R.string.default_port_be)))), BalancePolicy.ROUND_ROBIN);
+        }
+        proxy = new ProxyServer(config, new AndroidProxyPlatform(this));
+
+        // Apply setting changes to the running proxy rather than restarting it
+        sharedPreferences.registerOnSharedPreferenceChangeListener(preferenceListener);
+    }
+
+    /**
+     * Build the proxy settings from the preferences
+     *
+     * @param sharedPreferences The preferences to read
+     * @return The settings
+     * @throws IllegalArgumentException If the address, port or a limit is invalid
+     */
+    private ProxyConfig readConfig(SharedPreferences sharedPreferences) {
+        List<BackendAddress> backends = new ArrayList<>();
+        String address = sharedPreferences.getString("proxy_address", getResources().getString(R.string.default_ip)).trim();
+        String port = sharedPreferences.getString("proxy_port", getResources().getString(R.string.default_port_be)).trim();
+        try {
+            backends.add(new BackendAddress(address, Integer.parseInt(port)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port " + port, e);
+        }
+        try {
+            backends.addAll(BackendAddress.parseList(sharedPreferences.getString("proxy_backends", "")));
+        } catch (IllegalArgumentException e) {
+            // Carry on with just the main address rather than failing to start
+            proxyLogger.warning("Ignoring the extra backends: {}", e.getMessage());
+        }
+        BalancePolicy policy = BalancePolicy.fromName(sharedPreferences.getString("proxy_balance_policy", "round_robin"));
+
+        String motd = sharedPreferences.getString("proxy_motd", "").trim();
+        return ProxyConfig.of(backends, policy)
+                .withMotd(motd.isEmpty() ? null : motd)
+                .withLimits(readInt(sharedPreferences, "proxy_max_players", ProxyConfig.DEFAULT_MAX_PLAYERS),
+                        readInt(sharedPreferences, "proxy_max_pending_logins", ProxyConfig.DEFAULT_MAX_PENDING_LOGINS));
+    }
+
+    private static int readInt(SharedPreferences sharedPreferences, String key, int fallback) {
+        String value = sharedPreferences.getString(key, "").trim();
+        if (value.isEmpty()) {
+            return fallback;
+        }
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value, e);
+        }
+    }
+
+    /**
+     * @param sharedPreferences The preferences to read from
+     * @return The number of log records to keep, or the default if the setting is invalid
+     */
+    public static int readLogCapacity(SharedPreferences sharedPreferences) {
+        try {
+            return Integer.parseInt(sharedPreferences.getString("proxy_log_capacity", String.valueOf(ProxyLogger.DEFAULT_CAPACITY)));
+        } catch (NumberFormatException e) {
+            return ProxyLogger.DEFAULT_CAPACITY;
+        }
+    }
+
+    private void onPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        if ("proxy_log_capacity".equals(key)) {
+            ProxyLogger.setCapacity(readLogCapacity(sharedPreferences));
+            return;
+        }
+
+        if (key == null || !key.startsWith("proxy_") || !finishedStartup) {
+            return;
+        }
+
+        // The address fields change on every keystroke, so wait for typing to stop
+        if (pendingConfig != null) {
+            pendingConfig.cancel(false);
+        }
+        pendingConfig = proxy.generalThreadPool.schedule(() -> proxy.generalThreadPool.blocking().execute(() -> reloadConfig(sharedPreferences)),
+                CONFIG_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Apply the settings to the running proxy, keeping the current ones if the new ones
+     * are invalid or a backend can't be resolved. Resolving blocks, so run this off the main thread.
+     */
+    private void reloadConfig(SharedPreferences sharedPreferences) {
+        ProxyConfig next;
+        try {
+            next = readConfig(sharedPreferences);
+        } catch (IllegalArgumentException e) {
+            proxyLogger.warning("Invalid proxy settings, keeping the current ones: {}", e.getMessage());
+            return;
+        }
+
+        List<BackendAddress> unresolvable = next.findUnresolvable();
+        if (!unresolvable.isEmpty()) {
+            proxyLogger.warning("Unable to resolve {}, keeping the current settings", unresolvable);
+            return;
+        }
+
+        proxy.applyConfig(next);
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
 
-        ProxyServer.instance.onDisable();
+        PreferenceManager.getDefaultSharedPreferences(getApplicationContext()).unregisterOnSharedPreferenceChangeListener(preferenceListener);
+
+        // Stopping waits for players mid login to be transferred, so keep it off the main thread
+        ProxyServer proxyServer = ProxyServer.instance;
+        if (proxyServer != null) {
+            new Thread(proxyServer::onDisable, "Proxy Shutdown").start();
+        }
     }
 
     @Override
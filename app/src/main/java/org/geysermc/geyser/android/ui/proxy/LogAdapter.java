@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.ui.proxy;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.geysermc.geyser.android.R;
+import org.geysermc.geyser.android.proxy.logging.LogRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows log records as a list, only binding the rows on screen
+ */
+public class LogAdapter extends RecyclerView.Adapter<LogAdapter.ViewHolder> {
+
+    private final List<LogRecord> records = new ArrayList<>();
+    private int maxRecords;
+
+    /**
+     * @param maxRecords The most records to hold, the oldest are dropped past this
+     */
+    public LogAdapter(int maxRecords) {
+        this.maxRecords = maxRecords;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Change how many records are held, dropping the oldest if there are now too many
+     *
+     * @param maxRecords The most records to hold
+     */
+    public void setMaxRecords(int maxRecords) {
+        this.maxRecords = maxRecords;
+
+        int excess = records.size() - maxRecords;
+        if (excess > 0) {
+            records.subList(0, excess).clear();
+            notifyItemRangeRemoved(0, excess);
+        }
+    }
+
+    /**
+     * Replace every record, such as when the filter changes
+     *
+     * @param replacement The new records, oldest first
+     */
+    public void setRecords(List<LogRecord> replacement) {
+        records.clear();
+        int start = Math.max(0, replacement.size() - maxRecords);
+        records.addAll(replacement.subList(start, replacement.size()));
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Add new records to the end, dropping the oldest if there are too many
+     *
+     * @param added The new records, oldest first
+     */
+    public void append(List<LogRecord> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+
+        int start = records.size();
+        records.addAll(added);
+        notifyItemRangeInserted(start, added.size());
+
+        int excess = records.size() - maxRecords;
+        if (excess > 0) {
+            records.subList(0, excess).clear();
+            notifyItemRangeRemoved(0, excess);
+        }
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return new ViewHolder(LayoutInflater.from(parent.getContext()).inflate(R.layout.item_log_record, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        holder.text.setText(records.get(position).toString());
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return records.get(position).sequence();
+    }
+
+    @Override
+    public int getItemCount() {
+        return records.size();
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+
+        private final TextView text;
+
+        public ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            this.text = itemView.findViewById(R.id.txtLogRecord);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.ui.proxy;
+
+import android.view.Choreographer;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.geysermc.geyser.android.proxy.ProxyLogger;
+import org.geysermc.geyser.android.proxy.logging.LogRecord;
+import org.geysermc.geyser.android.proxy.logging.LogSink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Feeds the proxy log into a {@link LogAdapter}. New records are filtered on the log
+ * thread, a new filter is applied to the history on a background thread, and the list
+ * is only touched once per frame with whatever has built up since the last one.
+ */
+public class LogFeed implements LogSink, Choreographer.FrameCallback {
+
+    private final RecyclerView list;
+    private final LogAdapter adapter;
+    private final Choreographer choreographer;
+    private final ExecutorService filterExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "Log Filter"));
+
+    // Guarded by lock, shared between the log thread, the filter thread and the UI thread
+    private final Object lock = new Object();
+    private List<LogRecord> pending = new ArrayList<>();
+    private List<LogRecord> spare = new ArrayList<>();
+    private List<LogRecord> replacement;
+    private int generation;
+    private long historyEnd = -1;
+    private boolean frameScheduled;
+
+    private volatile LogFilter filter = LogFilter.ALL;
+    private volatile boolean closed;
+
+    /**
+     * Must be created on the UI thread
+     *
+     * @param list The list to show the records in
+     * @param adapter The adapter of the list
+     */
+    public LogFeed(RecyclerView list, LogAdapter adapter) {
+        this.list = list;
+        this.adapter = adapter;
+        this.choreographer = Choreographer.getInstance();
+    }
+
+    public LogAdapter getAdapter() {
+        return adapter;
+    }
+
+    public LogFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Load the history and start receiving new records
+     */
+    public void start() {
+        setFilter(filter);
+        ProxyLogger.addSink(this);
+    }
+
+    /**
+     * Stop receiving records, the feed can't be started again
+     */
+    public void stop() {
+        ProxyLogger.removeSink(this);
+    }
+
+    /**
+     * Show only the records matching a filter, the history is filtered in the background
+     *
+     * @param next The new filter
+     */
+    public void setFilter(LogFilter next) {
+        int current;
+        synchronized (lock) {
+            filter = next;
+            current = ++generation;
+        }
+
+        filterExecutor.execute(() -> {
+            List<LogRecord> history = ProxyLogger.getRecords().snapshot();
+            List<LogRecord> matched = new ArrayList<>();
+            for (LogRecord record : history) {
+                if (next.matches(record)) {
+                    matched.add(record);
+                }
+            }
+            long last = history.isEmpty() ? -1 : history.get(history.size() - 1).sequence();
+
+            synchronized (lock) {
+                // The filter changed again while this one was running
+                if (current != generation) {
+                    return;
+                }
+
+                // Anything already in the history doesn't need appending as well
+                pending.removeIf(record -> record.sequence() <= last);
+                historyEnd = last;
+                replacement = matched;
+                scheduleFrame();
+            }
+        });
+    }
+
+    @Override
+    public void write(List<LogRecord> records) {
+        synchronized (lock) {
+            LogFilter current = filter;
+            for (LogRecord record : records) {
+                // Records can reach the sink after the snapshot already picked them up
+                if (record.sequence() > historyEnd && current.matches(record)) {
+                    pending.add(record);
+                }
+            }
+            if (!pending.isEmpty()) {
+                scheduleFrame();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        filterExecutor.shutdownNow();
+        choreographer.removeFrameCallback(this);
+    }
+
+    private void scheduleFrame() {
+        if (!frameScheduled && !closed) {
+            frameScheduled = true;
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        List<LogRecord> appended;
+        List<LogRecord> replaced;
+        synchronized (lock) {
+            frameScheduled = false;
+            replaced = replacement;
+            replacement = null;
+            appended = pending;
+            pending = spare;
+        }
+
+        if (!closed) {
+            // Only follow new records if the list was already scrolled to the end
+            boolean follow = replaced != null || !list.canScrollVertically(1);
+            if (replaced != null) {
+                adapter.setRecords(replaced);
+            }
+            adapter.append(appended);
+            if (follow && adapter.getItemCount() > 0) {
+                list.scrollToPosition(adapter.getItemCount() - 1);
+            }
+        }
+
+        appended.clear();
+        synchronized (lock) {
+            spare = appended;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.ui.proxy;
+
+import org.geysermc.geyser.android.proxy.logging.LogLevel;
+import org.geysermc.geyser.android.proxy.logging.LogRecord;
+
+/**
+ * Which log records are shown, by minimum level and text
+ */
+public final class LogFilter {
+
+    public static final LogFilter ALL = new LogFilter(LogLevel.DEBUG, "");
+
+    private final LogLevel level;
+    private final String text;
+
+    /**
+     * @param level The lowest level to show
+     * @param text Text the message has to contain, ignoring case, or empty for any
+     */
+    public LogFilter(LogLevel level, String text) {
+        this.level = level;
+        this.text = text;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @param record The record to check
+     * @return If the record should be shown
+     */
+    public boolean matches(LogRecord record) {
+        if (record.level().compareTo(level) < 0) {
+            return false;
+        }
+        if (text.isEmpty()) {
+            return true;
+        }
+
+        // Compare in place rather than lower casing every message
+        String message = record.message();
+        for (int i = 0; i <= message.length() - text.length(); i++) {
+            if (message.regionMatches(true, i, text, 0, text.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
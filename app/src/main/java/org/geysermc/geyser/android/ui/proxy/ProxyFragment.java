@@ -28,21 +28,24 @@ package org.geysermc.geyser.android.ui.proxy;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
-import android.text.method.ScrollingMovementMethod;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AdapterView;
 import android.widget.Button;
+import android.widget.Spinner;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.preference.PreferenceManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import org.geysermc.geyser.android.R;
-import org.geysermc.geyser.android.proxy.ProxyLogger;
 import org.geysermc.geyser.android.proxy.ProxyServer;
+import org.geysermc.geyser.android.proxy.logging.LogLevel;
+import org.geysermc.geyser.android.proxy.logging.LogRingBuffer;
 import org.geysermc.geyser.android.service.ProxyService;
 import org.geysermc.geyser.android.utils.AndroidUtils;
 
@@ -53,7 +56,12 @@ public class ProxyFragment extends Fragment {
     private TextView txtAddress;
     private TextView txtPort;
     private Button btnStartStop;
-    private TextView txtLogs;
+    private Spinner spnLogLevel;
+    private TextView txtLogFilter;
+    private LogFeed logFeed;
+
+    // Kept in a field as the preferences only hold a weak reference to listeners
+    private final SharedPreferences.OnSharedPreferenceChangeListener preferenceListener = this::onPreferenceChanged;
 
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View root = inflater.inflate(R.layout.fragment_proxy, container, false);
@@ -62,13 +70,30 @@ public class ProxyFragment extends Fragment {
         txtAddress = root.findViewById(R.id.txtAddress);
         txtPort = root.findViewById(R.id.txtPort);
         btnStartStop = root.findViewById(R.id.btnStartStop);
-        txtLogs = root.findViewById(R.id.txtLogs);
+        spnLogLevel = root.findViewById(R.id.spnLogLevel);
+        txtLogFilter = root.findViewById(R.id.txtLogFilter);
+        RecyclerView lstLogs = root.findViewById(R.id.lstLogs);
+
+        // Show the log as a list that only draws the visible lines, and follow new ones as they arrive
+        logFeed = new LogFeed(lstLogs, new LogAdapter(LogRingBuffer.sizeFor(ProxyService.readLogCapacity(sharedPreferences))));
+        lstLogs.setAdapter(logFeed.getAdapter());
+        logFeed.start();
+        sharedPreferences.registerOnSharedPreferenceChangeListener(preferenceListener);
+
+        // Refilter the log when the level or text changes
+        spnLogLevel.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                updateLogFilter();
+            }
 
-        // Set the movement method for the logs
-        txtLogs.setMovementMethod(new ScrollingMovementMethod());
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+        txtLogFilter.addTextChangedListener(AndroidUtils.generateAfterTextChange((editable) -> updateLogFilter()));
 
         // Set the initial text for all the UI elements
-        txtLogs.setText(ProxyLogger.log);
         txtAddress.setText(sharedPreferences.getString("proxy_address", getResources().getString(R.string.default_ip)));
         txtPort.setText(sharedPreferences.getString("proxy_port", getResources().getString(R.string.default_port_be)));
 
@@ -82,14 +107,11 @@ public class ProxyFragment extends Fragment {
                 btnStartStop.setEnabled(false);
             }
 
-            txtAddress.setEnabled(false);
-            txtPort.setEnabled(false);
-
             // Setup the listeners for the current screen
             setupListeners(container);
         }
 
-        // Update the preference when the user has finished changing
+        // Update the preference when the user has finished changing, a running proxy picks it up straight away
         txtAddress.addTextChangedListener(AndroidUtils.generateAfterTextChange((editable) -> sharedPreferences.edit().putString("proxy_address", editable.toString()).apply()));
 
         // Update the preference when the user has finished changing
@@ -102,13 +124,9 @@ public class ProxyFragment extends Fragment {
                 getContext().stopService(serviceIntent);
 
                 self.setText(container.getResources().getString(R.string.proxy_start));
-                txtAddress.setEnabled(true);
-                txtPort.setEnabled(true);
             } else {
                 self.setText(container.getResources().getString(R.string.proxy_starting));
                 self.setEnabled(false);
-                txtAddress.setEnabled(false);
-                txtPort.setEnabled(false);
 
                 // Clear all the current disable listeners to preserve memory usage
                 ProxyServer.onDisableListeners.clear();
@@ -125,20 +143,39 @@ public class ProxyFragment extends Fragment {
         return root;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+
+        // Stop receiving log lines for a view that is gone
+        sharedPreferences.unregisterOnSharedPreferenceChangeListener(preferenceListener);
+        logFeed.stop();
+    }
+
+    private void onPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        // Hold as many lines as the log keeps, matching the rounding the log buffer uses
+        if ("proxy_log_capacity".equals(key)) {
+            logFeed.getAdapter().setMaxRecords(LogRingBuffer.sizeFor(ProxyService.readLogCapacity(sharedPreferences)));
+        }
+    }
+
+    private void updateLogFilter() {
+        LogLevel level = LogLevel.values()[spnLogLevel.getSelectedItemPosition()];
+        LogFilter next = new LogFilter(level, txtLogFilter.getText().toString());
+        if (next.getLevel() != logFeed.getFilter().getLevel() || !next.getText().equals(logFeed.getFilter().getText())) {
+            logFeed.setFilter(next);
+        }
+    }
+
     /**
-     * Setup the listeners for all the events of the logger and service
+     * Setup the listeners for all the events of the service
      *
      * @param container The container to use for getting resources
      */
     private void setupListeners(ViewGroup container) {
-        // When we have a new log line add it to txtLogs
-
-
         // When the server is disabled toggle the button
         ProxyServer.onDisableListeners.add(() -> AndroidUtils.runOnUiThread(getActivity(), () -> {
             btnStartStop.setText(container.getResources().getString(R.string.proxy_start));
-            txtAddress.setEnabled(true);
-            txtPort.setEnabled(true);
         }));
 
         // When the server has started and its failed status
@@ -146,8 +183,6 @@ public class ProxyFragment extends Fragment {
             if (failed) {
                 btnStartStop.setText(container.getResources().getString(R.string.proxy_start));
                 btnStartStop.setEnabled(true);
-                txtAddress.setEnabled(true);
-                txtPort.setEnabled(true);
             } else {
                 btnStartStop.setText(container.getResources().getString(R.string.proxy_stop));
                 btnStartStop.setEnabled(true);
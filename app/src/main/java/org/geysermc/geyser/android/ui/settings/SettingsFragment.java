@@ -34,6 +34,7 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatDelegate;
+import androidx.preference.EditTextPreference;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
 import androidx.preference.PreferenceManager;
@@ -64,6 +65,13 @@ public class SettingsFragment extends PreferenceFragmentCompat {
     public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
         setPreferencesFromResource(R.xml.root_preferences, rootKey);
 
+        // Only allow numbers in the proxy limits
+        for (String key : new String[]{"proxy_max_players", "proxy_max_pending_logins"}) {
+            EditTextPreference limit = findPreference(key);
+            assert limit != null;
+            limit.setOnBindEditTextListener(editText -> editText.setInputType(InputType.TYPE_CLASS_NUMBER));
+        }
+
         Preference configReset = findPreference("geyser_reset_config");
         assert configReset != null;
         configReset.setOnPreferenceClickListener(preference -> {
@@ -32,21 +32,6 @@ import android.text.Editable;
  */
 public class EventListeners {
 
-    /**
-     * This is used for adding a listener to the onDisable method of the {@link org.geysermc.geyser.android.geyser.GeyserAndroidBootstrap}
-     */
-    public interface OnDisableEventListener {
-        void onDisable();
-    }
-
-    /**
-     * This is used for adding a listener to the log events in both
-     * {@link org.geysermc.geyser.android.proxy.ProxyLogger} and {@link org.geysermc.geyser.android.geyser.GeyserAndroidLogger}
-     */
-    public interface LogEventListener {
-        void onLogLine(String line);
-    }
-
     /**
      * This is used for when the background service has finished starting
      */
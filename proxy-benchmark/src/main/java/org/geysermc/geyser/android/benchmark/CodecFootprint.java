@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.benchmark;
+
+import com.nukkitx.protocol.bedrock.v582.Bedrock_v582;
+
+import org.geysermc.geyser.android.proxy.CodecRegistry;
+import org.geysermc.geyser.android.proxy.ProxyCodec;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Prints the time and retained heap of getting a codec ready. Run once per
+ * mode in a fresh JVM, the codecFootprint task does this for every mode.
+ * <p>
+ * Modes: {@code baseline} loads nothing, {@code registry} creates the registry,
+ * {@code full} loads the full v582 codec, {@code proxy} builds the v582 proxy codec
+ * from its serializers, and {@code login} gets v582 from the registry like the first login does.
+ */
+public class CodecFootprint {
+
+    private static Object retained;
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "proxy";
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        long heapBefore = usedHeap(memory);
+        long start = System.nanoTime();
+        retained = switch (mode) {
+            case "baseline" -> null;
+            case "registry" -> CodecRegistry.create();
+            case "full" -> Bedrock_v582.V582_CODEC;
+            case "proxy" -> ProxyCodec.v582();
+            case "login" -> CodecRegistry.create().get(582);
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        };
+        long elapsed = System.nanoTime() - start;
+        long heapAfter = usedHeap(memory);
+
+        System.out.printf("%-8s %8.1f ms %8d KB retained %6d classes loaded%n", mode, elapsed / 1_000_000d,
+                (heapAfter - heapBefore) / 1024, ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        // A few collections so only reachable objects are counted
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nukkitx.protocol.bedrock.util.EncryptionUtils;
+
+import org.geysermc.geyser.android.proxy.login.LoginDataDecoder;
+import org.geysermc.geyser.android.proxy.login.LoginException;
+import org.geysermc.geyser.android.proxy.login.LoginVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.interfaces.ECPublicKey;
+import java.util.concurrent.TimeUnit;
+
+import static org.geysermc.geyser.android.proxy.ProxyServer.OBJECT_MAPPER;
+
+/**
+ * Benchmarks each stage of the login handshake in {@link LoginVerifier} and the whole thing.
+ * Run with {@code -prof gc} (the default for the jmh task) to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+
+    /**
+     * How many different players are logging in, 1 simulates a single client reconnecting
+     */
+    @Param({"1", "32"})
+    public int players;
+
+    /**
+     * Size of the skin geometry, 0 for a default skin
+     */
+    @Param({"0", "65536"})
+    public int geometrySize;
+
+    private LoginData[] logins;
+    private String[] identities;
+    private LoginDataDecoder.IdentityPayload[] payloads;
+    private ECPublicKey[] keys;
+
+    private int index;
+
+    @Setup
+    public void setup() throws Exception {
+        logins = new LoginData[players];
+        identities = new String[players];
+        payloads = new LoginDataDecoder.IdentityPayload[players];
+        keys = new ECPublicKey[players];
+
+        // Prepare the input for every stage so each can be measured alone
+        for (int i = 0; i < players; i++) {
+            logins[i] = LoginData.generate(i, geometrySize);
+            identities[i] = LoginDataDecoder.readIdentityJws(logins[i].chainData);
+            payloads[i] = LoginDataDecoder.readIdentityPayload(identities[i]);
+            keys[i] = LoginVerifier.getIdentityKey(payloads[i]);
+
+            if (!LoginVerifier.verifySkin(logins[i].skinData, keys[i])) {
+                throw new IllegalStateException("Generated skin data failed to verify");
+            }
+        }
+    }
+
+    private int next() {
+        int current = index;
+        index = (current + 1) % players;
+        return current;
+    }
+
+    @Benchmark
+    public String readIdentityJws() throws LoginException {
+        return LoginDataDecoder.readIdentityJws(logins[next()].chainData);
+    }
+
+    @Benchmark
+    public LoginDataDecoder.IdentityPayload readIdentityPayload() throws LoginException {
+        return LoginDataDecoder.readIdentityPayload(identities[next()]);
+    }
+
+    @Benchmark
+    public ECPublicKey generateKey() throws Exception {
+        return EncryptionUtils.generateKey(payloads[next()].identityPublicKey());
+    }
+
+    @Benchmark
+    public ECPublicKey cachedIdentityKey() throws LoginException {
+        return LoginVerifier.getIdentityKey(payloads[next()]);
+    }
+
+    @Benchmark
+    public boolean verifySkin() throws LoginException {
+        int i = next();
+        return LoginVerifier.verifySkin(logins[i].skinData, keys[i]);
+    }
+
+    @Benchmark
+    public JsonNode fullLogin() throws LoginException {
+        LoginData login = logins[next()];
+        return LoginVerifier.verify(login.chainData, login.skinData);
+    }
+
+    /**
+     * The full login with the identity key decoded every time instead of taken from
+     * {@link LoginVerifier#KEY_CACHE}, compare with fullLogin to see what the cache saves
+     */
+    @Benchmark
+    public JsonNode fullLoginUncachedKey() throws Exception {
+        LoginData login = logins[next()];
+        LoginVerifier.checkSize(login.chainData, login.skinData);
+
+        LoginDataDecoder.IdentityPayload payload = LoginVerifier.readPayload(login.chainData);
+        ECPublicKey identityKey = EncryptionUtils.generateKey(payload.identityPublicKey());
+        return LoginVerifier.verify(new LoginVerifier.ChainIdentity(identityKey, payload.extraData()), login.skinData);
+    }
+
+    /**
+     * The original login path, building json trees, copying the skin into a String
+     * and creating a new key and verifier every time
+     */
+    @Benchmark
+    public JsonNode fullLoginJsonTree() throws Exception {
+        LoginData login = logins[next()];
+
+        JsonNode chain = OBJECT_MAPPER.readTree(login.chainData.toByteArray()).get("chain");
+        JWSObject identity = JWSObject.parse(chain.get(chain.size() - 1).asText());
+        JsonNode payload = OBJECT_MAPPER.readTree(identity.getPayload().toBytes());
+
+        ECPublicKey identityPublicKey = EncryptionUtils.generateKey(payload.get("identityPublicKey").textValue());
+        JWSObject skin = JWSObject.parse(login.skinData.toString());
+        if (!skin.verify(new DefaultJWSVerifierFactory().createJWSVerifier(skin.getHeader(), identityPublicKey))) {
+            throw new LoginException("Invalid identity public key!");
+        }
+
+        return payload.get("extraData");
+    }
+}
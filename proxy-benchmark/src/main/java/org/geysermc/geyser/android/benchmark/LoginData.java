@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.benchmark;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.ECDSASigner;
+
+import io.netty.util.AsciiString;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.geysermc.geyser.android.proxy.ProxyServer.OBJECT_MAPPER;
+
+/**
+ * Generates realistic signed login chains and skin data offline using local signing keys
+ */
+public class LoginData {
+
+    // 64x64 RGBA skin, the size almost every client sends
+    private static final int SKIN_SIZE = 64 * 64 * 4;
+
+    public final AsciiString chainData;
+    public final AsciiString skinData;
+    public final String identityPublicKey;
+
+    private LoginData(AsciiString chainData, AsciiString skinData, String identityPublicKey) {
+        this.chainData = chainData;
+        this.skinData = skinData;
+        this.identityPublicKey = identityPublicKey;
+    }
+
+    /**
+     * Generate a new login with its own client key
+     *
+     * @param seed Seed for the player details and skin contents
+     * @param geometrySize Size in bytes of the fake skin geometry, to simulate custom skins
+     * @return The generated login
+     */
+    public static LoginData generate(long seed, int geometrySize) {
+        try {
+            Random random = new Random(seed);
+            KeyPair authority = generateKeyPair();
+            KeyPair client = generateKeyPair();
+
+            String authorityKey = encodeKey(authority);
+            String clientKey = encodeKey(client);
+
+            // Mirror the 3 entry chain sent by a signed in client
+            ObjectNode selfSigned = OBJECT_MAPPER.createObjectNode();
+            selfSigned.put("certificateAuthority", true);
+            selfSigned.put("identityPublicKey", authorityKey);
+            selfSigned.put("exp", 1900000000L);
+            selfSigned.put("nbf", 1600000000L);
+
+            ObjectNode authorityEntry = OBJECT_MAPPER.createObjectNode();
+            authorityEntry.put("certificateAuthority", true);
+            authorityEntry.put("identityPublicKey", authorityKey);
+            authorityEntry.put("randomNonce", random.nextLong());
+            authorityEntry.put("iss", "Mojang");
+            authorityEntry.put("exp", 1900000000L);
+            authorityEntry.put("iat", 1600000000L);
+            authorityEntry.put("nbf", 1600000000L);
+
+            ObjectNode extraData = OBJECT_MAPPER.createObjectNode();
+            extraData.put("XUID", Long.toString(2535400000000000L + (random.nextLong() & 0xFFFFFFFFL)));
+            extraData.put("identity", new UUID(random.nextLong(), random.nextLong()).toString());
+            extraData.put("displayName", "Player" + random.nextInt(100000));
+            extraData.put("titleId", "896928775");
+            extraData.put("sandboxId", "RETAIL");
+
+            ObjectNode identityEntry = OBJECT_MAPPER.createObjectNode();
+            identityEntry.set("extraData", extraData);
+            identityEntry.put("identityPublicKey", clientKey);
+            identityEntry.put("randomNonce", random.nextLong());
+            identityEntry.put("iss", "Mojang");
+            identityEntry.put("exp", 1900000000L);
+            identityEntry.put("iat", 1600000000L);
+            identityEntry.put("nbf", 1600000000L);
+
+            ArrayNode chain = OBJECT_MAPPER.createArrayNode();
+            chain.add(sign(selfSigned, client, clientKey));
+            chain.add(sign(authorityEntry, authority, authorityKey));
+            chain.add(sign(identityEntry, authority, authorityKey));
+
+            ObjectNode chainData = OBJECT_MAPPER.createObjectNode();
+            chainData.set("chain", chain);
+
+            // Build the skin data signed by the client key
+            byte[] skin = new byte[SKIN_SIZE];
+            random.nextBytes(skin);
+            byte[] geometry = new byte[geometrySize];
+            random.nextBytes(geometry);
+
+            ObjectNode skinData = OBJECT_MAPPER.createObjectNode();
+            skinData.put("ClientRandomId", random.nextLong());
+            skinData.put("DeviceModel", "BENCHMARK");
+            skinData.put("DeviceOS", 7);
+            skinData.put("GameVersion", "1.19.80");
+            skinData.put("CurrentInputMode", 1);
+            skinData.put("SkinId", new UUID(random.nextLong(), random.nextLong()) + ".Custom");
+            skinData.put("SkinImageWidth", 64);
+            skinData.put("SkinImageHeight", 64);
+            skinData.put("SkinData", Base64.getEncoder().encodeToString(skin));
+            skinData.put("SkinGeometryData", Base64.getEncoder().encodeToString(geometry));
+            skinData.put("CapeData", "");
+
+            return new LoginData(
+                    new AsciiString(OBJECT_MAPPER.writeValueAsBytes(chainData), false),
+                    new AsciiString(sign(skinData, client, clientKey)),
+                    clientKey
+            );
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to generate login data", e);
+        }
+    }
+
+    private static KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp384r1"));
+        return generator.generateKeyPair();
+    }
+
+    private static String encodeKey(KeyPair keyPair) {
+        return Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+    }
+
+    private static String sign(ObjectNode payload, KeyPair signer, String signerKey) throws JOSEException {
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.ES384)
+                .x509CertURL(URI.create(signerKey))
+                .build();
+
+        JWSObject jws = new JWSObject(header, new Payload(payload.toString().getBytes(StandardCharsets.UTF_8)));
+        jws.sign(new ECDSASigner((ECPrivateKey) signer.getPrivate()));
+        return jws.serialize();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import com.nukkitx.protocol.bedrock.BedrockPacketCodec;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The protocol versions the proxy accepts. Each codec is only built
+ * the first time a client on that version connects, so versions nobody uses
+ * cost nothing at startup or in memory.
+ */
+public class CodecRegistry {
+
+    private final TreeMap<Integer, Entry> entries = new TreeMap<>();
+    private final Map<Integer, BedrockPacketCodec> loaded = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> connections = new ConcurrentHashMap<>();
+
+    private final LongAdder rejectedOld = new LongAdder();
+    private final LongAdder rejectedNew = new LongAdder();
+
+    /**
+     * Create a registry of every version the proxy supports
+     */
+    public static CodecRegistry create() {
+        CodecRegistry registry = new CodecRegistry();
+        // Each codec is only built when called, from just the serializers the proxy uses
+        registry.register(560, "1.19.50", ProxyCodec::v560);
+        registry.register(567, "1.19.60", ProxyCodec::v567);
+        registry.register(568, "1.19.63", ProxyCodec::v568);
+        registry.register(575, "1.19.70", ProxyCodec::v575);
+        registry.register(582, "1.19.80", ProxyCodec::v582);
+        return registry;
+    }
+
+    /**
+     * Add a supported version
+     *
+     * @param protocolVersion The protocol version
+     * @param minecraftVersion The game version, shown in the server list
+     * @param codec Supplies the codec when it is first needed
+     */
+    public void register(int protocolVersion, String minecraftVersion, Supplier<BedrockPacketCodec> codec) {
+        entries.put(protocolVersion, new Entry(minecraftVersion, codec));
+    }
+
+    /**
+     * Get the codec for a client's protocol version, loading it on first use
+     *
+     * @param protocolVersion The protocol version the client sent
+     * @return The codec, or null if the version isn't supported
+     */
+    public BedrockPacketCodec get(int protocolVersion) {
+        BedrockPacketCodec codec = loaded.get(protocolVersion);
+        if (codec != null) {
+            return codec;
+        }
+
+        Entry entry = entries.get(protocolVersion);
+        if (entry == null) {
+            return null;
+        }
+        return loaded.computeIfAbsent(protocolVersion, key -> entry.codec().get());
+    }
+
+    /**
+     * Count a connection from a version, whether it was accepted or not
+     *
+     * @param protocolVersion The protocol version the client sent
+     */
+    public void recordConnection(int protocolVersion) {
+        if (protocolVersion < getOldestVersion()) {
+            rejectedOld.increment();
+        } else if (protocolVersion > getLatestVersion()) {
+            rejectedNew.increment();
+        }
+
+        // Only count known versions so a client can't grow the map
+        if (entries.containsKey(protocolVersion)) {
+            connections.computeIfAbsent(protocolVersion, key -> new LongAdder()).increment();
+        }
+    }
+
+    public int getOldestVersion() {
+        return entries.firstKey();
+    }
+
+    public int getLatestVersion() {
+        return entries.lastKey();
+    }
+
+    /**
+     * @return The game version of the latest protocol, without loading its codec
+     */
+    public String getLatestMinecraftVersion() {
+        return entries.lastEntry().getValue().minecraftVersion();
+    }
+
+    /**
+     * @param protocolVersion The protocol version
+     * @return The number of connections counted from that version
+     */
+    public long getConnections(int protocolVersion) {
+        LongAdder count = connections.get(protocolVersion);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return The number of codecs that have been loaded so far
+     */
+    public int getLoaded() {
+        return loaded.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Codecs: ").append(loaded.size()).append('/').append(entries.size()).append(" loaded");
+        for (Map.Entry<Integer, Entry> entry : entries.entrySet()) {
+            long count = getConnections(entry.getKey());
+            if (count > 0) {
+                builder.append(", ").append(entry.getValue().minecraftVersion()).append(" (").append(entry.getKey()).append("): ").append(count);
+            }
+        }
+        return builder.append(", ").append(rejectedOld.sum()).append(" too old, ")
+                .append(rejectedNew.sum()).append(" too new").toString();
+    }
+
+    private record Entry(String minecraftVersion, Supplier<BedrockPacketCodec> codec) {
+    }
+}
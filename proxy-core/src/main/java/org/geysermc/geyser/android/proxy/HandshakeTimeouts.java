@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the deadline of each session's current {@link SessionState} on a single
+ * hashed wheel timer, so a session only ever holds one small timeout entry
+ */
+public class HandshakeTimeouts {
+
+    private final HashedWheelTimer timer;
+    private final Map<SessionState, LongAdder> timedOut = new EnumMap<>(SessionState.class);
+
+    public HandshakeTimeouts() {
+        this.timer = new HashedWheelTimer(runnable -> {
+            Thread thread = new Thread(runnable, "Handshake Timeouts");
+            thread.setDaemon(true);
+            return thread;
+        }, 100, TimeUnit.MILLISECONDS, 512);
+
+        for (SessionState state : SessionState.values()) {
+            timedOut.put(state, new LongAdder());
+        }
+    }
+
+    /**
+     * Schedule the deadline for a session's new state
+     *
+     * @param state The state the session has entered
+     * @param onTimeout Called on the timer thread if the deadline passes
+     * @return The scheduled timeout, or null if the state has no deadline
+     */
+    public Timeout schedule(SessionState state, Runnable onTimeout) {
+        if (state.getTimeoutMillis() <= 0) {
+            return null;
+        }
+
+        return timer.newTimeout(timeout -> onTimeout.run(), state.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record that a session timed out
+     *
+     * @param state The state the session was stuck in
+     */
+    public void recordTimeout(SessionState state) {
+        timedOut.get(state).increment();
+    }
+
+    public long getTimedOut(SessionState state) {
+        return timedOut.get(state).sum();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Handshake timeouts:");
+        for (Map.Entry<SessionState, LongAdder> entry : timedOut.entrySet()) {
+            if (entry.getKey().getTimeoutMillis() > 0) {
+                builder.append(' ').append(entry.getKey()).append('=').append(entry.getValue().sum());
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import com.nukkitx.protocol.bedrock.BedrockPacket;
+import com.nukkitx.protocol.bedrock.BedrockPacketCodec;
+import com.nukkitx.protocol.bedrock.BedrockServerSession;
+import com.nukkitx.protocol.bedrock.packet.UnknownPacket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import org.geysermc.geyser.android.proxy.network.RakNetBacklog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects a burst of login packets and writes them as a single compressed batch,
+ * instead of leaving each {@link BedrockServerSession#sendPacket} to be batched separately.
+ * Packets are encoded as they are queued, so the size of the burst is known exactly.
+ * <p>
+ * The UDP channel is shared by every client so its writability says nothing about one of them.
+ * Instead, if this session's RakNet backlog is too long the flush is retried for a short time,
+ * then the client is disconnected so a slow client can't pile up buffers in the proxy.
+ */
+public class LoginBurstSender {
+
+    // RakNet datagram header + encapsulated frame header
+    private static final int DATAGRAM_OVERHEAD = 4 + 20;
+
+    /**
+     * The most packets and unacknowledged datagrams a session can have before a burst waits
+     */
+    public static final int MAX_BACKLOG = 256;
+
+    private static final long RETRY_INTERVAL_MILLIS = 50;
+    private static final int MAX_RETRIES = 100;
+
+    private final BedrockServerSession session;
+    private final LoginBurstStats stats;
+    private final List<BedrockPacket> queued = new ArrayList<>();
+
+    private long queuedBytes;
+
+    public LoginBurstSender(BedrockServerSession session, LoginBurstStats stats) {
+        this.session = session;
+        this.stats = stats;
+    }
+
+    public LoginBurstSender queue(BedrockPacket packet) {
+        UnknownPacket encoded = packet instanceof UnknownPacket unknownPacket ? unknownPacket : encode(packet);
+        queued.add(encoded);
+        queuedBytes += encoded.getPayload().readableBytes();
+        return this;
+    }
+
+    public LoginBurstSender queueAll(Collection<? extends BedrockPacket> packets) {
+        for (BedrockPacket packet : packets) {
+            queue(packet);
+        }
+        return this;
+    }
+
+    /**
+     * Send everything queued as one batch, once the session has caught up with what it was already sending
+     */
+    public void flush() {
+        if (queued.isEmpty()) {
+            return;
+        }
+
+        List<BedrockPacket> packets = new ArrayList<>(queued);
+        long bytes = queuedBytes;
+        queued.clear();
+        queuedBytes = 0;
+
+        flush(packets, bytes, 0);
+    }
+
+    private void flush(List<BedrockPacket> packets, long bytes, int attempt) {
+        if (session.isClosed()) {
+            return;
+        }
+
+        if (RakNetBacklog.RAKNET.get(session.getConnection()) > MAX_BACKLOG) {
+            if (attempt >= MAX_RETRIES) {
+                stats.recordDropped();
+                session.disconnect("disconnectionScreen.timeout");
+                return;
+            }
+
+            stats.recordDeferred();
+            session.getEventLoop().schedule(() -> flush(packets, bytes, attempt + 1), RETRY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        session.sendWrapped(packets, true);
+
+        int payloadPerDatagram = Math.max(1, session.getConnection().getMtu() - DATAGRAM_OVERHEAD);
+        stats.recordBatch(packets.size(), bytes, (int) Math.max(1, (bytes + payloadPerDatagram - 1) / payloadPerDatagram));
+    }
+
+    /**
+     * Encode a packet body with the session's codec, the same way the spawn sequence is cached
+     */
+    private UnknownPacket encode(BedrockPacket packet) {
+        BedrockPacketCodec codec = session.getPacketCodec();
+        ByteBuf buffer = Unpooled.buffer();
+        codec.tryEncode(buffer, packet, session);
+
+        UnknownPacket encoded = new UnknownPacket();
+        encoded.setPacketId(codec.getId(packet));
+        encoded.setPayload(buffer);
+        return encoded;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import org.geysermc.geyser.android.proxy.network.RakNetBacklog;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the packet bursts sent during login
+ */
+public class LoginBurstStats {
+
+    private final LongAdder logins = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder packets = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder estimatedDatagrams = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public void recordLogin() {
+        logins.increment();
+    }
+
+    void recordBatch(int packetCount, long byteCount, int datagramEstimate) {
+        batches.increment();
+        packets.add(packetCount);
+        bytes.add(byteCount);
+        estimatedDatagrams.add(datagramEstimate);
+    }
+
+    void recordDeferred() {
+        deferred.increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    public long getLogins() {
+        return logins.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getPackets() {
+        return packets.sum();
+    }
+
+    /**
+     * @return The uncompressed, encoded size of all the bursts sent
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * @return An estimate of the datagrams sent, an upper bound from the uncompressed size and MTU
+     */
+    public long getEstimatedDatagrams() {
+        return estimatedDatagrams.sum();
+    }
+
+    /**
+     * @return The number of times a burst waited for a session's backlog to clear
+     */
+    public long getDeferred() {
+        return deferred.sum();
+    }
+
+    /**
+     * @return The number of bursts dropped, and their clients disconnected, as the backlog never cleared
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public String toString() {
+        long loginCount = Math.max(1, getLogins());
+        return String.format("Login bursts: %d logins, %.2f batches/login, %.0f bytes/login, %.2f datagrams/login (estimated), %d deferred, %d dropped%s",
+                getLogins(), (double) getBatches() / loginCount, (double) getBytes() / loginCount,
+                (double) getEstimatedDatagrams() / loginCount, getDeferred(), getDropped(),
+                RakNetBacklog.RAKNET.isAvailable() ? "" : ", session backlog unavailable");
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nukkitx.network.util.DisconnectReason;
+import com.nukkitx.protocol.bedrock.BedrockPacketCodec;
+import com.nukkitx.protocol.bedrock.BedrockServerSession;
+import com.nukkitx.protocol.bedrock.handler.BedrockPacketHandler;
+import com.nukkitx.protocol.bedrock.packet.LoginPacket;
+import com.nukkitx.protocol.bedrock.packet.PlayStatusPacket;
+import com.nukkitx.protocol.bedrock.packet.ResourcePackClientResponsePacket;
+import com.nukkitx.protocol.bedrock.packet.ResourcePackStackPacket;
+import com.nukkitx.protocol.bedrock.packet.ResourcePacksInfoPacket;
+import com.nukkitx.protocol.bedrock.packet.SetLocalPlayerAsInitializedPacket;
+
+import io.netty.util.Timeout;
+
+import org.geysermc.geyser.android.proxy.login.BoundedLoginSerializer;
+import org.geysermc.geyser.android.proxy.login.LoginException;
+import org.geysermc.geyser.android.proxy.login.LoginVerifier;
+import org.geysermc.geyser.android.proxy.network.TargetResolver;
+
+public class PacketHandler implements BedrockPacketHandler {
+
+    private final BedrockServerSession session;
+    private final ProxyServer masterServer;
+
+    private Player player;
+
+    private SessionState state;
+    private Timeout deadline;
+
+    public PacketHandler(BedrockServerSession session, ProxyServer masterServer) {
+        this.session = session;
+        this.masterServer = masterServer;
+
+        session.addDisconnectHandler(this::disconnect);
+        setState(SessionState.CONNECTED);
+    }
+
+    public void disconnect(DisconnectReason reason) {
+        setState(SessionState.CLOSED);
+
+        if (player != null) {
+            masterServer.proxyLogger.info("{} has disconnected from the master server ({})", player.displayName, reason);
+            masterServer.players.unregister(player);
+        }
+    }
+
+    /**
+     * Move the session to a new state, replacing the deadline of the previous one
+     *
+     * @param newState The state to move to
+     */
+    private void setState(SessionState newState) {
+        if (deadline != null) {
+            deadline.cancel();
+        }
+
+        // Keep the admission controller's count of logins in progress up to date
+        boolean wasPending = state != null && state.isPendingLogin();
+        if (!wasPending && newState.isPendingLogin()) {
+            masterServer.admission.loginStarted();
+        } else if (wasPending && !newState.isPendingLogin()) {
+            masterServer.admission.loginFinished();
+        }
+
+        // Keep the count of sessions a drain has to wait for up to date
+        boolean wasInFlight = state != null && state.isInFlight();
+        if (!wasInFlight && newState.isInFlight()) {
+            masterServer.lifecycle.sessionStarted();
+        } else if (wasInFlight && !newState.isInFlight()) {
+            masterServer.lifecycle.sessionFinished();
+        }
+
+        state = newState;
+        deadline = masterServer.handshakeTimeouts.schedule(newState, () -> session.getEventLoop().execute(() -> onDeadline(newState)));
+    }
+
+    /**
+     * Disconnect the session if it is still stuck in the given state
+     *
+     * @param expired The state whose deadline passed
+     */
+    private void onDeadline(SessionState expired) {
+        if (state != expired || session.isClosed()) {
+            return;
+        }
+
+        masterServer.handshakeTimeouts.recordTimeout(expired);
+        masterServer.proxyLogger.debug("Session {} timed out in state {}", session.getAddress(), expired);
+        session.disconnect("disconnectionScreen.timeout");
+    }
+
+    @Override
+    public boolean handle(LoginPacket packet) {
+        if (state != SessionState.CONNECTED) {
+            return true;
+        }
+
+        // Pick the codec for the client's version, or tell it which side is out of date
+        int protocol = packet.getProtocolVersion();
+        masterServer.codecs.recordConnection(protocol);
+        BedrockPacketCodec codec = masterServer.codecs.get(protocol);
+        if (codec == null) {
+            boolean serverOld = protocol > masterServer.codecs.getLatestVersion();
+            PlayStatusPacket status = new PlayStatusPacket();
+            status.setStatus(serverOld ? PlayStatusPacket.Status.LOGIN_FAILED_SERVER_OLD : PlayStatusPacket.Status.LOGIN_FAILED_CLIENT_OLD);
+            session.sendPacketImmediately(status);
+            session.disconnect(serverOld ? "disconnectionScreen.outdatedServer" : "disconnectionScreen.outdatedClient");
+            return true;
+        }
+
+        // Set the session codec
+        session.setPacketCodec(codec);
+
+        // Reject oversized login data before it is handed off, the serializer never copied it
+        try {
+            if (BoundedLoginSerializer.isTooLarge(packet)) {
+                throw new LoginException("Login data too large");
+            }
+            LoginVerifier.checkSize(packet.getChainData(), packet.getSkinData());
+        } catch (LoginException e) {
+            masterServer.proxyLogger.warning("Rejected login from {}: {}", session.getAddress(), e.getMessage());
+            session.disconnect("disconnectionScreen.internalError.cantConnect");
+            return false;
+        }
+
+        // Verify the chain and skin data off the event loop
+        setState(SessionState.VERIFYING);
+        boolean queued = masterServer.loginVerifier.submit(packet.getChainData(), packet.getSkinData(), session.getEventLoop(), this::onLoginVerified);
+        if (!queued) {
+            masterServer.proxyLogger.warning("Too many pending logins, disconnecting {}", session.getAddress());
+            session.disconnect("disconnectionScreen.serverFull");
+        }
+
+        return false;
+    }
+
+    /**
+     * Finish the login once the client data has been verified, runs on the session event loop
+     *
+     * @param extraData The verified client data
+     * @param error The reason the verification failed
+     */
+    private void onLoginVerified(JsonNode extraData, LoginException error) {
+        if (state != SessionState.VERIFYING || session.isClosed()) {
+            return;
+        }
+
+        if (error != null) {
+            masterServer.proxyLogger.error("Failed to login", error);
+            session.disconnect("disconnectionScreen.internalError.cantConnect");
+            return;
+        }
+
+        try {
+            // Create a new player and add it to the players list
+            player = new Player(extraData, session);
+            Player replaced = masterServer.players.register(player);
+            if (replaced != null && replaced != player) {
+                // Only the newest session for an account is kept, close the old one
+                masterServer.proxyLogger.info("{} logged in again, closing their old session", player.displayName);
+                replaced.disconnect("disconnectionScreen.loggedinOtherLocation");
+            }
+            masterServer.loginBurstStats.recordLogin();
+            setState(SessionState.RESOURCE_PACKS);
+
+            // Tell the client we have logged in successfully
+            PlayStatusPacket playStatusPacket = new PlayStatusPacket();
+            playStatusPacket.setStatus(PlayStatusPacket.Status.LOGIN_SUCCESS);
+
+            // Tell the client there are no resourcepacks
+            ResourcePacksInfoPacket resourcePacksInfo = new ResourcePacksInfoPacket();
+
+            new LoginBurstSender(session, masterServer.loginBurstStats)
+                    .queue(playStatusPacket)
+                    .queue(resourcePacksInfo)
+                    .flush();
+        } catch (Exception e) {
+            // Disconnect the client
+            masterServer.proxyLogger.error("Failed to login", e);
+            session.disconnect("disconnectionScreen.internalError.cantConnect");
+        }
+    }
+
+    @Override
+    public boolean handle(ResourcePackClientResponsePacket packet) {
+        if (state != SessionState.RESOURCE_PACKS) {
+            return true;
+        }
+
+        switch (packet.getStatus()) {
+            case COMPLETED -> {
+                masterServer.proxyLogger.info("Logged in {} ({}, {})", player.displayName, player.xuid, player.identity);
+                setState(SessionState.SPAWNING);
+                player.sendStartGame();
+            }
+            case HAVE_ALL_PACKS -> {
+                ResourcePackStackPacket stack = new ResourcePackStackPacket();
+                stack.setExperimentsPreviouslyToggled(false);
+                stack.setForcedToAccept(false);
+                stack.setGameVersion("*");
+                session.sendPacket(stack);
+            }
+            default -> session.disconnect("disconnectionScreen.resourcePack");
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean handle(SetLocalPlayerAsInitializedPacket packet) {
+        if (state != SessionState.SPAWNING) {
+            return true;
+        }
+
+        masterServer.proxyLogger.debug("Player initialized: {}", player.displayName);
+        setState(SessionState.TRANSFERRED);
+
+        // Use the routing rules first, then balance across the backends
+        TargetResolver target = masterServer.router.route(player);
+        player.connectToServer(target != null ? target : masterServer.backends.select().getTarget());
+
+        return false;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nukkitx.protocol.bedrock.BedrockServerSession;
+import com.nukkitx.protocol.bedrock.packet.TransferPacket;
+
+import org.geysermc.geyser.android.proxy.network.TargetResolver;
+
+import java.net.InetSocketAddress;
+import java.util.UUID;
+
+public class Player {
+
+    public final String xuid;
+    public final UUID identity;
+    public final String displayName;
+    public final int deviceOs;
+    public final int inputMode;
+
+    private final BedrockServerSession session;
+    private final InetSocketAddress address;
+
+    public Player(JsonNode extraData, BedrockServerSession session) {
+        this(extraData, session, session.getAddress());
+    }
+
+    /**
+     * @param extraData The verified client data
+     * @param session The client's session
+     * @param address The client's address, kept so the registry can index it even once the session closes
+     */
+    public Player(JsonNode extraData, BedrockServerSession session, InetSocketAddress address) {
+        this.xuid = extraData.get("XUID").asText();
+        this.identity = UUID.fromString(extraData.get("identity").asText());
+        this.displayName = extraData.get("displayName").asText();
+        this.deviceOs = extraData.path("DeviceOS").asInt();
+        this.inputMode = extraData.path("CurrentInputMode").asInt();
+
+        this.session = session;
+        this.address = address;
+    }
+
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Disconnect the client, from its own event loop as this can be called from another session's
+     *
+     * @param reason The disconnect message
+     */
+    public void disconnect(String reason) {
+        session.getEventLoop().execute(() -> session.disconnect(reason));
+    }
+
+    /**
+     * Send a few different packets to get the client to load in
+     */
+    public void sendStartGame() {
+        new LoginBurstSender(session, ProxyServer.instance.loginBurstStats)
+                .queueAll(SpawnSequenceCache.getPackets(session))
+                .flush();
+    }
+
+    /**
+     * Send the player to the another server
+     *
+     * @param target The resolved server to send the player to
+     */
+    public void connectToServer(TargetResolver target) {
+        ProxyServer.instance.proxyLogger.info("Sending server transfer packet to {}", displayName);
+        // Use the resolved IP to reduce issues with hostnames for PS4
+        // Thanks Extollite
+        TransferPacket transferPacket = new TransferPacket();
+        transferPacket.setAddress(target.getTransferAddress());
+        transferPacket.setPort(target.getPort());
+        session.sendPacket(transferPacket);
+    }
+}
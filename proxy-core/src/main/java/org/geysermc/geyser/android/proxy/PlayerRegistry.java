@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe registry of the connected players, indexed by XUID, identity and remote address.
+ * The XUID index is the source of truth. Each register and unregister runs atomically for its XUID,
+ * updating the other indexes inside the same step, so neither they nor the count can drift when
+ * a player rejoins while their old session is still closing.
+ */
+public class PlayerRegistry {
+
+    private final Map<String, Player> byXuid = new ConcurrentHashMap<>();
+    private final Map<UUID, Player> byIdentity = new ConcurrentHashMap<>();
+    private final Map<InetSocketAddress, Player> byAddress = new ConcurrentHashMap<>();
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final LongAdder registered = new LongAdder();
+    private final LongAdder unregistered = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+    private final LongAdder staleRemovals = new LongAdder();
+
+    /**
+     * Add a player, replacing any existing player with the same XUID
+     *
+     * @param player The player to add
+     * @return The player that was replaced, or null
+     */
+    public Player register(Player player) {
+        Player[] previous = new Player[1];
+        byXuid.compute(player.xuid, (xuid, current) -> {
+            if (current == null) {
+                count.incrementAndGet();
+            } else if (current != player) {
+                // The same account logged in twice, the old session is dropped
+                replaced.increment();
+                removeIndexes(current);
+            }
+
+            byIdentity.put(player.identity, player);
+            if (player.getAddress() != null) {
+                byAddress.put(player.getAddress(), player);
+            }
+            previous[0] = current;
+            registered.increment();
+            return player;
+        });
+        return previous[0];
+    }
+
+    /**
+     * Remove a player, if it hasn't already been replaced by a newer session
+     *
+     * @param player The player to remove
+     * @return If the player was removed
+     */
+    public boolean unregister(Player player) {
+        boolean[] removed = new boolean[1];
+        byXuid.computeIfPresent(player.xuid, (xuid, current) -> {
+            if (current != player) {
+                return current;
+            }
+
+            count.decrementAndGet();
+            unregistered.increment();
+            removeIndexes(current);
+            removed[0] = true;
+            return null;
+        });
+
+        if (!removed[0]) {
+            staleRemovals.increment();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Remove a player from the secondary indexes, leaving any newer player that took its place
+     */
+    private void removeIndexes(Player player) {
+        byIdentity.remove(player.identity, player);
+        if (player.getAddress() != null) {
+            byAddress.remove(player.getAddress(), player);
+        }
+    }
+
+    public Player getByXuid(String xuid) {
+        return byXuid.get(xuid);
+    }
+
+    public Player getByIdentity(UUID identity) {
+        return byIdentity.get(identity);
+    }
+
+    public Player getByAddress(InetSocketAddress address) {
+        return byAddress.get(address);
+    }
+
+    /**
+     * @return The number of connected players
+     */
+    public int size() {
+        return count.get();
+    }
+
+    /**
+     * Get a copy of the connected players, safe to iterate while players join and leave
+     *
+     * @return The connected players, each only once
+     */
+    public List<Player> snapshot() {
+        return List.copyOf(byXuid.values());
+    }
+
+    public long getRegistered() {
+        return registered.sum();
+    }
+
+    public long getUnregistered() {
+        return unregistered.sum();
+    }
+
+    /**
+     * @return How many times a login replaced an existing session for the same XUID
+     */
+    public long getReplaced() {
+        return replaced.sum();
+    }
+
+    /**
+     * @return How many removals lost the race to a newer session for the same XUID
+     */
+    public long getStaleRemovals() {
+        return staleRemovals.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Players: %d online, %d joined, %d left, %d replaced, %d stale removals",
+                size(), getRegistered(), getUnregistered(), getReplaced(), getStaleRemovals());
+    }
+}
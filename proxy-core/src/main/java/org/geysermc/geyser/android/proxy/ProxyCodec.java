@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import com.nukkitx.protocol.bedrock.BedrockCompat;
+import com.nukkitx.protocol.bedrock.BedrockPacket;
+import com.nukkitx.protocol.bedrock.BedrockPacketCodec;
+import com.nukkitx.protocol.bedrock.BedrockPacketHelper;
+import com.nukkitx.protocol.bedrock.BedrockPacketSerializer;
+import com.nukkitx.protocol.bedrock.packet.BiomeDefinitionListPacket;
+import com.nukkitx.protocol.bedrock.packet.ClientCacheStatusPacket;
+import com.nukkitx.protocol.bedrock.packet.CreativeContentPacket;
+import com.nukkitx.protocol.bedrock.packet.DisconnectPacket;
+import com.nukkitx.protocol.bedrock.packet.LevelChunkPacket;
+import com.nukkitx.protocol.bedrock.packet.LoginPacket;
+import com.nukkitx.protocol.bedrock.packet.NetworkSettingsPacket;
+import com.nukkitx.protocol.bedrock.packet.PacketViolationWarningPacket;
+import com.nukkitx.protocol.bedrock.packet.PlayStatusPacket;
+import com.nukkitx.protocol.bedrock.packet.RequestNetworkSettingsPacket;
+import com.nukkitx.protocol.bedrock.packet.ResourcePackClientResponsePacket;
+import com.nukkitx.protocol.bedrock.packet.ResourcePackStackPacket;
+import com.nukkitx.protocol.bedrock.packet.ResourcePacksInfoPacket;
+import com.nukkitx.protocol.bedrock.packet.SetEntityMotionPacket;
+import com.nukkitx.protocol.bedrock.packet.SetLocalPlayerAsInitializedPacket;
+import com.nukkitx.protocol.bedrock.packet.StartGamePacket;
+import com.nukkitx.protocol.bedrock.packet.TransferPacket;
+
+import com.nukkitx.protocol.bedrock.v291.serializer.DisconnectSerializer_v291;
+import com.nukkitx.protocol.bedrock.v291.serializer.PlayStatusSerializer_v291;
+import com.nukkitx.protocol.bedrock.v291.serializer.ResourcePackClientResponseSerializer_v291;
+import com.nukkitx.protocol.bedrock.v291.serializer.SetEntityMotionSerializer_v291;
+import com.nukkitx.protocol.bedrock.v291.serializer.SetLocalPlayerAsInitializedSerializer_v291;
+import com.nukkitx.protocol.bedrock.v291.serializer.TransferSerializer_v291;
+import com.nukkitx.protocol.bedrock.v313.serializer.BiomeDefinitionListSerializer_v313;
+import com.nukkitx.protocol.bedrock.v361.serializer.ClientCacheStatusSerializer_v361;
+import com.nukkitx.protocol.bedrock.v407.serializer.CreativeContentSerializer_v407;
+import com.nukkitx.protocol.bedrock.v407.serializer.PacketViolationWarningSerializer_v407;
+import com.nukkitx.protocol.bedrock.v419.serializer.ResourcePackStackSerializer_v419;
+import com.nukkitx.protocol.bedrock.v448.serializer.ResourcePacksInfoSerializer_v448;
+import com.nukkitx.protocol.bedrock.v486.serializer.LevelChunkSerializer_v486;
+import com.nukkitx.protocol.bedrock.v554.serializer.NetworkSettingsSerializer_v554;
+import com.nukkitx.protocol.bedrock.v554.serializer.RequestNetworkSettingsSerializer_v554;
+
+import org.geysermc.geyser.android.proxy.login.BoundedLoginSerializer;
+
+import java.util.List;
+
+/**
+ * Builds codecs with only the packets the proxy sends or handles during login
+ * and transfer. Anything else a client sends is left as an opaque
+ * {@link com.nukkitx.protocol.bedrock.packet.UnknownPacket} rather than being
+ * fully deserialized.
+ * <p>
+ * The codecs are put together from the individual serializers rather than copied
+ * from {@code Bedrock_vXXX}, as loading one of those builds every earlier codec too.
+ * The helper and start game serializer still change between the supported versions, so
+ * those are looked up by the library's naming, taking the newest at or below the codec's
+ * version, the same one the library's codec inherits.
+ */
+public class ProxyCodec {
+
+    // Every version the proxy supports speaks RakNet 11
+    private static final int RAKNET_PROTOCOL_VERSION = 11;
+
+    private static final String LIBRARY_PACKAGE = "com.nukkitx.protocol.bedrock.v";
+
+    /**
+     * The versions the protocol library has a package for, newest first
+     */
+    private static final int[] LIBRARY_VERSIONS = {
+            582, 575, 568, 567, 560, 557, 554, 545, 544, 534, 527, 503, 486, 475, 471, 465, 448, 440,
+            431, 428, 422, 419, 408, 407, 390, 389, 388, 361, 354, 340, 332, 313, 291
+    };
+
+    /**
+     * Every packet the login, spawn and transfer flow touches
+     */
+    public static final List<Class<? extends BedrockPacket>> PACKETS = List.of(
+            // Connecting and logging in
+            RequestNetworkSettingsPacket.class,
+            NetworkSettingsPacket.class,
+            LoginPacket.class,
+            PlayStatusPacket.class,
+            DisconnectPacket.class,
+            ClientCacheStatusPacket.class,
+            PacketViolationWarningPacket.class,
+
+            // Resource pack negotiation
+            ResourcePacksInfoPacket.class,
+            ResourcePackStackPacket.class,
+            ResourcePackClientResponsePacket.class,
+
+            // Spawning
+            StartGamePacket.class,
+            LevelChunkPacket.class,
+            BiomeDefinitionListPacket.class,
+            CreativeContentPacket.class,
+            SetEntityMotionPacket.class,
+            SetLocalPlayerAsInitializedPacket.class,
+
+            // Sending the player on
+            TransferPacket.class
+    );
+
+    /**
+     * The codec a session starts with, before the client's version is known. This is the
+     * library's compat codec, so the network settings handshake works as before, with the
+     * login read by {@link BoundedLoginSerializer}.
+     */
+    public static final BedrockPacketCodec COMPAT_CODEC = BedrockCompat.COMPAT_CODEC.toBuilder()
+            .updateSerializer(LoginPacket.class, BoundedLoginSerializer.INSTANCE)
+            .build();
+
+    public static BedrockPacketCodec v560() {
+        return build(560, "1.19.50");
+    }
+
+    public static BedrockPacketCodec v567() {
+        return build(567, "1.19.60");
+    }
+
+    public static BedrockPacketCodec v568() {
+        return build(568, "1.19.63");
+    }
+
+    public static BedrockPacketCodec v575() {
+        return build(575, "1.19.70");
+    }
+
+    public static BedrockPacketCodec v582() {
+        return build(582, "1.19.80");
+    }
+
+    /**
+     * Build a codec with only {@link #PACKETS}
+     *
+     * @param protocolVersion The protocol version
+     * @param minecraftVersion The game version
+     * @return The minimal codec
+     * @throws IllegalStateException If the library has no helper or start game serializer for the version
+     */
+    private static BedrockPacketCodec build(int protocolVersion, String minecraftVersion) {
+        BedrockPacketHelper helper = find("BedrockPacketHelper", protocolVersion);
+        BedrockPacketSerializer<StartGamePacket> startGame = find("serializer.StartGameSerializer", protocolVersion);
+        return BedrockPacketCodec.builder()
+                .protocolVersion(protocolVersion)
+                .raknetProtocolVersion(RAKNET_PROTOCOL_VERSION)
+                .minecraftVersion(minecraftVersion)
+                .helper(helper)
+                // Never read oversized login data
+                .registerPacket(LoginPacket.class, BoundedLoginSerializer.INSTANCE, 1)
+                .registerPacket(PlayStatusPacket.class, PlayStatusSerializer_v291.INSTANCE, 2)
+                .registerPacket(DisconnectPacket.class, DisconnectSerializer_v291.INSTANCE, 5)
+                .registerPacket(ResourcePacksInfoPacket.class, ResourcePacksInfoSerializer_v448.INSTANCE, 6)
+                .registerPacket(ResourcePackStackPacket.class, ResourcePackStackSerializer_v419.INSTANCE, 7)
+                .registerPacket(ResourcePackClientResponsePacket.class, ResourcePackClientResponseSerializer_v291.INSTANCE, 8)
+                .registerPacket(StartGamePacket.class, startGame, 11)
+                .registerPacket(SetEntityMotionPacket.class, SetEntityMotionSerializer_v291.INSTANCE, 40)
+                .registerPacket(LevelChunkPacket.class, LevelChunkSerializer_v486.INSTANCE, 58)
+                .registerPacket(TransferPacket.class, TransferSerializer_v291.INSTANCE, 85)
+                .registerPacket(SetLocalPlayerAsInitializedPacket.class, SetLocalPlayerAsInitializedSerializer_v291.INSTANCE, 113)
+                .registerPacket(BiomeDefinitionListPacket.class, BiomeDefinitionListSerializer_v313.INSTANCE, 122)
+                .registerPacket(ClientCacheStatusPacket.class, ClientCacheStatusSerializer_v361.INSTANCE, 129)
+                .registerPacket(NetworkSettingsPacket.class, NetworkSettingsSerializer_v554.INSTANCE, 143)
+                .registerPacket(CreativeContentPacket.class, CreativeContentSerializer_v407.INSTANCE, 145)
+                .registerPacket(PacketViolationWarningPacket.class, PacketViolationWarningSerializer_v407.INSTANCE, 156)
+                .registerPacket(RequestNetworkSettingsPacket.class, RequestNetworkSettingsSerializer_v554.INSTANCE, 193)
+                .build();
+    }
+
+    /**
+     * Get the {@code INSTANCE} of a library class from the newest version at or below a protocol version.
+     * A version only has its own class when something changed, otherwise it uses the one before.
+     *
+     * @param name The class name within the version package, without the version suffix
+     * @param protocolVersion The protocol version
+     * @return The instance
+     * @throws IllegalStateException If no version has the class
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T find(String name, int protocolVersion) {
+        for (int version : LIBRARY_VERSIONS) {
+            if (version > protocolVersion) {
+                continue;
+            }
+
+            String className = LIBRARY_PACKAGE + version + "." + name + "_v" + version;
+            try {
+                return (T) Class.forName(className).getField("INSTANCE").get(null);
+            } catch (ClassNotFoundException e) {
+                // Unchanged in this version, try the one before
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Unable to get the instance of " + className, e);
+            }
+        }
+        throw new IllegalStateException("The protocol library has no " + name + " for version " + protocolVersion);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import org.geysermc.geyser.android.proxy.network.BackendAddress;
+import org.geysermc.geyser.android.proxy.network.BalancePolicy;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable snapshot of the settings that can change while the proxy is running.
+ * A new snapshot is swapped in whole with {@link ProxyServer#applyConfig(ProxyConfig)}.
+ *
+ * @param backends The servers to transfer players to, the first is the main address
+ * @param balancePolicy How players are spread across the backends
+ * @param motd The server name shown in the server list, or null for the default
+ * @param maxPlayers The maximum player count shown in the server list
+ * @param maxPendingLogins The most logins that can be in progress at once
+ */
+public record ProxyConfig(List<BackendAddress> backends, BalancePolicy balancePolicy, String motd, int maxPlayers, int maxPendingLogins) {
+
+    public static final int DEFAULT_MAX_PLAYERS = 1337;
+    public static final int DEFAULT_MAX_PENDING_LOGINS = 64;
+
+    public ProxyConfig {
+        if (backends.isEmpty()) {
+            throw new IllegalArgumentException("At least one backend is required");
+        }
+        if (maxPlayers < 0) {
+            throw new IllegalArgumentException("Max players can't be negative");
+        }
+        if (maxPendingLogins < 1) {
+            throw new IllegalArgumentException("At least one pending login must be allowed");
+        }
+        backends = List.copyOf(backends);
+    }
+
+    /**
+     * Create a config with the default server list details and limits
+     *
+     * @param backends The servers to transfer players to
+     * @param balancePolicy How players are spread across the backends
+     */
+    public static ProxyConfig of(List<BackendAddress> backends, BalancePolicy balancePolicy) {
+        return new ProxyConfig(backends, balancePolicy, null, DEFAULT_MAX_PLAYERS, DEFAULT_MAX_PENDING_LOGINS);
+    }
+
+    /**
+     * @param motd The server name shown in the server list, or null for the default
+     * @return A copy of this config with a different motd
+     */
+    public ProxyConfig withMotd(String motd) {
+        return new ProxyConfig(backends, balancePolicy, motd, maxPlayers, maxPendingLogins);
+    }
+
+    /**
+     * @param maxPlayers The maximum player count shown in the server list
+     * @param maxPendingLogins The most logins that can be in progress at once
+     * @return A copy of this config with different limits
+     * @throws IllegalArgumentException If a limit is out of range
+     */
+    public ProxyConfig withLimits(int maxPlayers, int maxPendingLogins) {
+        return new ProxyConfig(backends, balancePolicy, motd, maxPlayers, maxPendingLogins);
+    }
+
+    /**
+     * Look up every backend, so a mistyped host can be caught before it replaces working settings.
+     * This blocks on DNS, so never call it on a network thread.
+     *
+     * @return The backends that couldn't be resolved
+     */
+    public List<BackendAddress> findUnresolvable() {
+        List<BackendAddress> unresolvable = new ArrayList<>();
+        for (BackendAddress backend : backends) {
+            try {
+                InetAddress.getByName(backend.host());
+            } catch (UnknownHostException | RuntimeException e) {
+                unresolvable.add(backend);
+            }
+        }
+        return unresolvable;
+    }
+}
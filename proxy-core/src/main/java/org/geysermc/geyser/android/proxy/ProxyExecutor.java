@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The proxy's shared executor for scheduled and background work. It is sized
+ * from the available cores and its idle threads exit, so an idle proxy keeps a
+ * single parked thread. Blocking work such as DNS lookups can optionally be
+ * put on virtual threads when the JVM has them.
+ */
+public class ProxyExecutor extends ScheduledThreadPoolExecutor {
+
+    private static final long IDLE_SECONDS = 30;
+
+    private final ExecutorService virtualThreads;
+    private final ThreadLocal<Long> taskStart = new ThreadLocal<>();
+
+    private final LongAdder taskNanos = new LongAdder();
+    private final AtomicLong maxTaskNanos = new AtomicLong();
+    private final LongAdder lateNanos = new LongAdder();
+    private final AtomicLong maxLateNanos = new AtomicLong();
+    private final LongAdder tasks = new LongAdder();
+
+    /**
+     * @param threads The most threads to run at once
+     * @param useVirtualThreads If blocking work should go on virtual threads when available
+     */
+    public ProxyExecutor(int threads, boolean useVirtualThreads) {
+        super(threads, namedThreads());
+        setKeepAliveTime(IDLE_SECONDS, TimeUnit.SECONDS);
+        allowCoreThreadTimeOut(true);
+        setRemoveOnCancelPolicy(true);
+        setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+
+        this.virtualThreads = useVirtualThreads ? newVirtualThreadExecutor() : null;
+    }
+
+    /**
+     * Create an executor sized to the available cores, the work on it is light so half is plenty
+     *
+     * @param useVirtualThreads If blocking work should go on virtual threads when available
+     */
+    public static ProxyExecutor create(boolean useVirtualThreads) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new ProxyExecutor(Math.max(1, Math.min(4, cores / 2)), useVirtualThreads);
+    }
+
+    private static ThreadFactory namedThreads() {
+        AtomicInteger threadId = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "Proxy Worker #" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Look up virtual threads reflectively so this still builds and runs on older JVMs and Android
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Where to run work that blocks, virtual threads if enabled and available, otherwise this executor
+     */
+    public Executor blocking() {
+        return virtualThreads != null ? virtualThreads : this;
+    }
+
+    /**
+     * Repeatedly run a task that blocks, on {@link #blocking()}
+     *
+     * @param task The task to run
+     * @param initialDelay The delay before the first run
+     * @param delay The delay between runs
+     * @param unit The unit of the delays
+     * @return The future to cancel the task with
+     */
+    public ScheduledFuture<?> scheduleBlocking(Runnable task, long initialDelay, long delay, TimeUnit unit) {
+        if (virtualThreads == null) {
+            return scheduleWithFixedDelay(task, initialDelay, delay, unit);
+        }
+        return scheduleWithFixedDelay(() -> virtualThreads.execute(task), initialDelay, delay, unit);
+    }
+
+    /**
+     * @return If blocking work is going on virtual threads
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads != null;
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        super.beforeExecute(thread, runnable);
+
+        // Scheduled tasks report a negative delay once they are overdue, which is how late they started
+        if (runnable instanceof Delayed delayed) {
+            long late = Math.max(0, -delayed.getDelay(TimeUnit.NANOSECONDS));
+            lateNanos.add(late);
+            maxLateNanos.accumulateAndGet(late, Math::max);
+        }
+        taskStart.set(System.nanoTime());
+    }
+
+    @Override
+    protected void afterExecute(Runnable runnable, Throwable error) {
+        super.afterExecute(runnable, error);
+
+        Long start = taskStart.get();
+        if (start != null) {
+            long nanos = System.nanoTime() - start;
+            taskNanos.add(nanos);
+            maxTaskNanos.accumulateAndGet(nanos, Math::max);
+            tasks.increment();
+            taskStart.remove();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        if (virtualThreads != null) {
+            virtualThreads.shutdown();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        if (virtualThreads != null) {
+            virtualThreads.shutdownNow();
+        }
+        return super.shutdownNow();
+    }
+
+    /**
+     * @return The number of tasks waiting, including scheduled ones that aren't due yet
+     */
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    /**
+     * @return The mean time a task ran for in microseconds
+     */
+    public double getMeanTaskMicros() {
+        long count = tasks.sum();
+        return count == 0 ? 0 : taskNanos.sum() / 1000d / count;
+    }
+
+    /**
+     * @return The mean time a task started after it was due in microseconds
+     */
+    public double getMeanLateMicros() {
+        long count = tasks.sum();
+        return count == 0 ? 0 : lateNanos.sum() / 1000d / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Executor: %d/%d threads, %d active, %d queued, %d run, mean %.0fus (max %.0fus), late mean %.0fus (max %.0fus)%s",
+                getPoolSize(), getCorePoolSize(), getActiveCount(), getQueueDepth(), tasks.sum(),
+                getMeanTaskMicros(), maxTaskNanos.get() / 1000d, getMeanLateMicros(), maxLateNanos.get() / 1000d,
+                isUsingVirtualThreads() ? ", blocking work on virtual threads" : "");
+    }
+}
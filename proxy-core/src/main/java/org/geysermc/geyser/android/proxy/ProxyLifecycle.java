@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks which stage of its life the proxy is in, and the sessions that still
+ * need to be finished before it can stop
+ */
+public class ProxyLifecycle {
+
+    public enum State {
+        /**
+         * Binding and loading, not accepting players yet
+         */
+        STARTING,
+        /**
+         * Accepting and transferring players
+         */
+        RUNNING,
+        /**
+         * Turning away new players while the ones mid login are finished and transferred
+         */
+        DRAINING,
+        /**
+         * Everything has been shut down
+         */
+        STOPPED
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.STARTING);
+    private final Object drainLock = new Object();
+    private int inFlight;
+
+    private Set<Thread> threadsAtStart = Set.of();
+    private long drainStartNanos;
+    private long drainNanos;
+    private long stopNanos;
+    private List<String> leakedThreads = List.of();
+
+    /**
+     * Mark the proxy as started, remembering the threads alive before it so leaks can be found later
+     *
+     * @param threadsAtStart The threads that were running before the proxy started
+     */
+    public void started(Set<Thread> threadsAtStart) {
+        this.threadsAtStart = threadsAtStart;
+        state.compareAndSet(State.STARTING, State.RUNNING);
+    }
+
+    /**
+     * Start draining, only the first caller gets true and should carry out the shutdown
+     *
+     * @return If the proxy was running and is now draining
+     */
+    public boolean beginDrain() {
+        State current = state.get();
+        while (current == State.STARTING || current == State.RUNNING) {
+            if (state.compareAndSet(current, State.DRAINING)) {
+                drainStartNanos = System.nanoTime();
+                return true;
+            }
+            current = state.get();
+        }
+        return false;
+    }
+
+    /**
+     * Wait until every session in flight has been transferred or closed
+     *
+     * @param timeout The most time to wait
+     * @param unit The unit of the timeout
+     * @return If every session finished in time
+     */
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (drainLock) {
+            while (inFlight > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(drainLock, remaining);
+            }
+            drainNanos = System.nanoTime() - drainStartNanos;
+            return inFlight == 0;
+        }
+    }
+
+    /**
+     * Mark the proxy as fully stopped and look for threads it left behind
+     */
+    public void stopped() {
+        stopNanos = System.nanoTime() - drainStartNanos;
+        state.set(State.STOPPED);
+
+        Set<Thread> leaked = new HashSet<>(Thread.getAllStackTraces().keySet());
+        leaked.removeAll(threadsAtStart);
+        leaked.remove(Thread.currentThread());
+        leakedThreads = leaked.stream().filter(Thread::isAlive).map(Thread::getName).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Called when a session connects, a drain waits for it from now on
+     */
+    public void sessionStarted() {
+        synchronized (drainLock) {
+            inFlight++;
+        }
+    }
+
+    /**
+     * Called when a session has been transferred or closed
+     */
+    public void sessionFinished() {
+        synchronized (drainLock) {
+            if (--inFlight == 0) {
+                drainLock.notifyAll();
+            }
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public boolean isRunning() {
+        return state.get() == State.RUNNING;
+    }
+
+    public int getInFlight() {
+        synchronized (drainLock) {
+            return inFlight;
+        }
+    }
+
+    /**
+     * @return The names of the threads started by the proxy that were still alive once it stopped
+     */
+    public List<String> getLeakedThreads() {
+        return leakedThreads;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Lifecycle: %s, drained in %.0fms, stopped in %.0fms, %d leaked threads %s",
+                state.get(), drainNanos / 1_000_000d, stopNanos / 1_000_000d, leakedThreads.size(), leakedThreads);
+    }
+}
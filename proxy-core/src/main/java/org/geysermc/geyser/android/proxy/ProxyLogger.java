@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import org.geysermc.geyser.android.proxy.logging.LogLevel;
+import org.geysermc.geyser.android.proxy.logging.LogPipeline;
+import org.geysermc.geyser.android.proxy.logging.LogRecord;
+import org.geysermc.geyser.android.proxy.logging.LogRingBuffer;
+import org.geysermc.geyser.android.proxy.logging.LogSink;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Logging calls only check the level and queue the message, formatting and delivery
+ * happen on the log thread so the network threads never wait on the log or the UI.
+ * Use a template such as {@code info("Logged in {}", name)} or a supplier rather
+ * than building the message up front.
+ */
+public class ProxyLogger {
+
+    /**
+     * The number of log records kept when no capacity has been set
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static volatile LogRingBuffer records = new LogRingBuffer(DEFAULT_CAPACITY);
+    private static volatile LogLevel level = LogLevel.DEBUG;
+
+    private static final LogPipeline PIPELINE = new LogPipeline(ProxyLogger::getRecords);
+
+    public static ProxyEventListeners.LogEventListener listener;
+
+    static {
+        // Hand each line to the listener from the log thread
+        PIPELINE.addSink(batch -> {
+            ProxyEventListeners.LogEventListener current = listener;
+            if (current != null) {
+                for (LogRecord record : batch) {
+                    current.onLogLine(record.toString());
+                }
+            }
+        });
+    }
+
+    public void warning(String message) {
+        log(LogLevel.WARN, message, null, null, null);
+    }
+
+    public void warning(String template, Object... args) {
+        log(LogLevel.WARN, template, args, null, null);
+    }
+
+    public void warning(Supplier<String> message) {
+        log(LogLevel.WARN, null, null, message, null);
+    }
+
+    public void info(String message) {
+        log(LogLevel.INFO, message, null, null, null);
+    }
+
+    public void info(String template, Object... args) {
+        log(LogLevel.INFO, template, args, null, null);
+    }
+
+    public void info(Supplier<String> message) {
+        log(LogLevel.INFO, null, null, message, null);
+    }
+
+    public void error(String message, Throwable error) {
+        log(LogLevel.ERROR, message, null, null, error);
+    }
+
+    public void error(String template, Throwable error, Object... args) {
+        log(LogLevel.ERROR, template, args, null, error);
+    }
+
+    public void debug(String message) {
+        log(LogLevel.DEBUG, message, null, null, null);
+    }
+
+    public void debug(String template, Object... args) {
+        log(LogLevel.DEBUG, template, args, null, null);
+    }
+
+    public void debug(Supplier<String> message) {
+        log(LogLevel.DEBUG, null, null, message, null);
+    }
+
+    private void log(LogLevel level, String template, Object[] args, Supplier<String> supplier, Throwable error) {
+        if (isEnabled(level)) {
+            PIPELINE.submit(level, template, args, supplier, error);
+        }
+    }
+
+    /**
+     * @param level The level to check
+     * @return If records of the level are logged
+     */
+    public static boolean isEnabled(LogLevel level) {
+        return level.compareTo(ProxyLogger.level) >= 0;
+    }
+
+    public static LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * @param level The lowest level to log, anything below it is skipped before being formatted
+     */
+    public static void setLevel(LogLevel level) {
+        ProxyLogger.level = level;
+    }
+
+    /**
+     * @param sink A sink to deliver every record to from now on
+     */
+    public static void addSink(LogSink sink) {
+        PIPELINE.addSink(sink);
+    }
+
+    /**
+     * @param sink The sink to stop delivering to, it is closed once removed
+     */
+    public static void removeSink(LogSink sink) {
+        PIPELINE.removeSink(sink);
+    }
+
+    /**
+     * Wait for everything logged so far to reach the listener and sinks, such as before exiting
+     *
+     * @param timeout The longest to wait
+     * @param unit The unit of the timeout
+     * @return If everything was delivered in time
+     */
+    public static boolean flush(long timeout, TimeUnit unit) {
+        try {
+            return PIPELINE.flush(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return The pipeline records pass through, for its stats
+     */
+    public static LogPipeline getPipeline() {
+        return PIPELINE;
+    }
+
+    /**
+     * @return The store of recent log records, take a snapshot of it to read them
+     */
+    public static LogRingBuffer getRecords() {
+        return records;
+    }
+
+    /**
+     * Change how many log records are kept, the newest ones are carried over
+     *
+     * @param capacity The number of records to keep, clamped to {@link LogRingBuffer#MAX_CAPACITY}
+     */
+    public static synchronized void setCapacity(int capacity) {
+        if (LogRingBuffer.sizeFor(capacity) != records.getCapacity()) {
+            // A line logged while copying can be missed, which is fine for a settings change
+            records = records.resize(capacity);
+        }
+    }
+}
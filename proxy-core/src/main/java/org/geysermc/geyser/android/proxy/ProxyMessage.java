@@ -25,36 +25,26 @@
 
 package org.geysermc.geyser.android.proxy;
 
-import org.geysermc.geyser.android.utils.EventListeners;
-
-public class ProxyLogger {
-
-    public static String log = "";
-
-    public static EventListeners.LogEventListener listener;
-
-    public void warning(String message) {
-        log += "WARN - " + message + "\n";
-        if (listener != null) listener.onLogLine("WARN - " + message);
-        // System.out.println("WARN - " + message);
-    }
-
-    public void info(String message) {
-        log += "INFO - " + message + "\n";
-        if (listener != null) listener.onLogLine("INFO - " + message);
-        // System.out.println("INFO - " + message);
-    }
-
-    public void error(String message, Throwable error) {
-        log += "ERROR - " + message + "\n";
-        if (listener != null) listener.onLogLine("ERROR - " + message);
-        // System.out.println("ERROR - " + message + " - " + error.getMessage());
-        // error.printStackTrace();
+/**
+ * The translatable messages used by the proxy.
+ * Each one holds the English text used when the platform has no translations.
+ */
+public enum ProxyMessage {
+    STARTING("Starting proxy"),
+    STARTED("Proxy started on %s"),
+    SHUTDOWN("Shutting down proxy"),
+    DRAINING("Waiting for %d players to be transferred"),
+    CLOSING("Proxy closing"),
+    SHUTDOWN_DONE("Proxy shutdown complete"),
+    MOTD("Proxy");
+
+    private final String defaultMessage;
+
+    ProxyMessage(String defaultMessage) {
+        this.defaultMessage = defaultMessage;
     }
 
-    public void debug(String message) {
-        log += "DEBUG - " + message + "\n";
-        if (listener != null) listener.onLogLine ("DEBUG - " + message);
-        // System.out.println("DEBUG - " + message);
+    public String getDefaultMessage() {
+        return defaultMessage;
     }
 }
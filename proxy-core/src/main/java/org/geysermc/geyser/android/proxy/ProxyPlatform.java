@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import java.nio.file.Path;
+
+/**
+ * Everything the proxy needs from the platform it is running on,
+ * so the core doesn't depend on Android directly
+ */
+public interface ProxyPlatform {
+
+    /**
+     * Get a translated message for the current platform
+     *
+     * @param message The message to get
+     * @param args Arguments to format into the message
+     * @return The formatted message
+     */
+    String getMessage(ProxyMessage message, Object... args);
+
+    /**
+     * Get the directory the proxy can store files in
+     *
+     * @return The storage path
+     */
+    Path getStoragePath();
+
+    /**
+     * Called once the proxy has bound and is accepting connections
+     */
+    default void onProxyStarted() { }
+
+    /**
+     * Called once the proxy has fully shutdown
+     */
+    default void onProxyStopped() { }
+}
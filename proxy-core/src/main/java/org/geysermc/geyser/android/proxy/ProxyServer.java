@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nukkitx.protocol.bedrock.BedrockPong;
+import com.nukkitx.protocol.bedrock.BedrockServerEventHandler;
+import com.nukkitx.protocol.bedrock.BedrockServerSession;
+
+import org.geysermc.geyser.android.proxy.logging.LogLevel;
+import org.geysermc.geyser.android.proxy.logging.RollingFileSink;
+import org.geysermc.geyser.android.proxy.login.LoginVerificationService;
+import org.geysermc.geyser.android.proxy.login.LoginVerifier;
+import org.geysermc.geyser.android.proxy.network.AdmissionController;
+import org.geysermc.geyser.android.proxy.network.BackendAddress;
+import org.geysermc.geyser.android.proxy.network.BackendPool;
+import org.geysermc.geyser.android.proxy.network.BalancePolicy;
+import org.geysermc.geyser.android.proxy.network.ListenerGroup;
+import org.geysermc.geyser.android.proxy.network.LivePong;
+import org.geysermc.geyser.android.proxy.routing.Router;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class ProxyServer {
+
+    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private ListenerGroup listeners;
+
+    public boolean shuttingDown = false;
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 10;
+    private static final long STOP_TIMEOUT_SECONDS = 2;
+
+    public final ProxyLifecycle lifecycle = new ProxyLifecycle();
+
+    public static ProxyServer instance;
+
+    public final ProxyLogger proxyLogger = new ProxyLogger();
+
+    public ProxyExecutor generalThreadPool;
+
+    public final PlayerRegistry players = new PlayerRegistry();
+
+    public final CodecRegistry codecs = CodecRegistry.create();
+
+    public final LoginBurstStats loginBurstStats = new LoginBurstStats();
+
+    public LoginVerificationService loginVerifier;
+
+    public HandshakeTimeouts handshakeTimeouts;
+
+    public AdmissionController admission;
+
+    public LivePong pong;
+
+    public volatile BackendPool backends;
+
+    public Router router;
+
+    public RollingFileSink logFiles;
+
+    public final ProxyPlatform platform;
+
+    private volatile ProxyConfig config;
+
+    /**
+     * The port to listen on
+     */
+    public int bindPort = 19132;
+
+    /**
+     * How many listeners share the port, only used with native epoll
+     */
+    public int listenerCount = 1;
+
+    /**
+     * Listen on IPv6 as well as IPv4
+     */
+    public boolean dualStack = false;
+
+    /**
+     * Run blocking work such as DNS lookups on virtual threads, if the JVM has them
+     */
+    public boolean useVirtualThreads = false;
+
+    public static final List<ProxyEventListeners.OnDisableEventListener> onDisableListeners = new ArrayList<>();
+
+    public ProxyServer(String address, int port, ProxyPlatform platform) {
+        this(ProxyConfig.of(List.of(new BackendAddress(address, port)), BalancePolicy.ROUND_ROBIN), platform);
+    }
+
+    public ProxyServer(ProxyConfig config, ProxyPlatform platform) {
+        this.config = config;
+        this.platform = platform;
+    }
+
+    public void onEnable() {
+        Set<Thread> threadsAtStart = Set.copyOf(Thread.getAllStackTraces().keySet());
+        instance = this;
+
+        this.generalThreadPool = ProxyExecutor.create(useVirtualThreads);
+
+        // Keep the log on disk so it can be read after the proxy has stopped
+        try {
+            this.logFiles = new RollingFileSink(platform.getStoragePath().resolve("logs"),
+                    RollingFileSink.DEFAULT_SEGMENT_BYTES, RollingFileSink.DEFAULT_MAX_TOTAL_BYTES, generalThreadPool.blocking());
+            ProxyLogger.addSink(logFiles);
+        } catch (IOException e) {
+            proxyLogger.error("Unable to open the log files", e);
+        }
+
+        this.loginVerifier = LoginVerificationService.create();
+        this.handshakeTimeouts = new HandshakeTimeouts();
+        this.admission = AdmissionController.create();
+        this.admission.setMaxPendingLogins(config.maxPendingLogins());
+        this.pong = new LivePong(players, 10, 5);
+
+        // Resolve the backends now so any problems show straight away, then keep them fresh
+        this.backends = new BackendPool(config.backends(), config.balancePolicy(), proxyLogger);
+        this.backends.start(generalThreadPool);
+
+        // Load the routing rules, they are picked up again whenever the file changes
+        this.router = new Router(platform.getStoragePath().resolve("routes.txt"), backends, proxyLogger);
+        this.router.start(generalThreadPool);
+
+        // Forget idle addresses from the admission and query rate limits
+        this.generalThreadPool.scheduleAtFixedRate(() -> {
+            admission.cleanup();
+            pong.cleanup();
+        }, 1, 1, TimeUnit.MINUTES);
+
+        // Initialise the palettes
+        PaletteManger.init();
+
+        start();
+        lifecycle.started(threadsAtStart);
+    }
+
+    public void onDisable() {
+        this.shutdown();
+
+        for (ProxyEventListeners.OnDisableEventListener onDisableListener : onDisableListeners) {
+            if (onDisableListener != null) onDisableListener.onDisable();
+        }
+    }
+
+    private void start() {
+        proxyLogger.info(() -> platform.getMessage(ProxyMessage.STARTING) + "...");
+
+        listeners = new ListenerGroup(bindPort, listenerCount, dualStack, proxyLogger);
+
+        updatePong(config);
+
+        // Start server up
+        listeners.bind(new BedrockServerEventHandler() {
+            @Override
+            public boolean onConnectionRequest(InetSocketAddress address) {
+                return lifecycle.isRunning() && admission.tryAdmit(address);
+            }
+
+            @Override
+            public BedrockPong onQuery(InetSocketAddress address) {
+                return pong.onQuery(address);
+            }
+
+            @Override
+            public void onSessionCreation(BedrockServerSession session) {
+                // Read the login with the size limits until the client's version is known
+                session.setPacketCodec(ProxyCodec.COMPAT_CODEC);
+                session.setPacketHandler(new PacketHandler(session, instance));
+            }
+        });
+        String boundAddress = listeners.getBoundAddress();
+        proxyLogger.info(() -> platform.getMessage(ProxyMessage.STARTED, boundAddress));
+
+        platform.onProxyStarted();
+    }
+
+    public ProxyConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Swap in new settings while the proxy is running. Connected players are left
+     * alone and new connections, pings and transfers use the new settings.
+     *
+     * @param next The new settings
+     */
+    public synchronized void applyConfig(ProxyConfig next) {
+        ProxyConfig previous = config;
+        config = next;
+
+        // Not started yet, onEnable will use the new config
+        if (pong == null || shuttingDown) {
+            return;
+        }
+
+        updatePong(next);
+        admission.setMaxPendingLogins(next.maxPendingLogins());
+
+        if (!next.backends().equals(previous.backends()) || next.balancePolicy() != previous.balancePolicy()) {
+            BackendPool pool = new BackendPool(next.backends(), next.balancePolicy(), proxyLogger);
+            pool.start(generalThreadPool);
+
+            BackendPool old = backends;
+            backends = pool;
+            router.setBackends(pool);
+            old.stop();
+        }
+
+        proxyLogger.info("Applied new proxy settings");
+    }
+
+    private void updatePong(ProxyConfig config) {
+        String motd = config.motd() != null ? config.motd() : platform.getMessage(ProxyMessage.MOTD);
+        pong.setDetails(motd, config.maxPlayers(), codecs.getLatestVersion(), codecs.getLatestMinecraftVersion(), bindPort);
+    }
+
+    public void shutdown() {
+        // Only the first call shuts down, a second one would find everything already closed
+        if (!lifecycle.beginDrain()) {
+            return;
+        }
+
+        proxyLogger.info(() -> platform.getMessage(ProxyMessage.SHUTDOWN));
+        shuttingDown = true;
+
+        // Turn away new players, the ones part way through logging in are finished and transferred
+        if (pong != null) {
+            pong.setDetails(platform.getMessage(ProxyMessage.CLOSING), 0, codecs.getLatestVersion(), codecs.getLatestMinecraftVersion(), bindPort);
+        }
+
+        int inFlight = lifecycle.getInFlight();
+        if (inFlight > 0) {
+            proxyLogger.info(() -> platform.getMessage(ProxyMessage.DRAINING, inFlight));
+        }
+        try {
+            if (!lifecycle.awaitDrained(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                proxyLogger.warning("Gave up waiting for {} players to be transferred", lifecycle.getInFlight());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Shutting down from STARTING means onEnable may not have created everything yet
+        if (listeners != null) {
+            listeners.close();
+        }
+        if (router != null) {
+            router.stop();
+        }
+        if (backends != null) {
+            backends.stop();
+        }
+        if (generalThreadPool != null) {
+            generalThreadPool.shutdown();
+        }
+        // Read the stats now, before the caches below are cleared
+        if (ProxyLogger.isEnabled(LogLevel.DEBUG)) {
+            logStats(generalThreadPool, players, codecs, handshakeTimeouts, admission, pong, backends, router, loginBurstStats, loginVerifier);
+            if (loginVerifier != null) {
+                proxyLogger.debug(loginVerifier.getIdentityCache().toString());
+            }
+            logStats(LoginVerifier.KEY_CACHE, ProxyLogger.getPipeline(), logFiles);
+        }
+        if (loginVerifier != null) {
+            loginVerifier.shutdown();
+        }
+        if (handshakeTimeouts != null) {
+            handshakeTimeouts.stop();
+        }
+
+        // Give the background work a moment to finish so it isn't counted as leaked
+        if (generalThreadPool != null) {
+            try {
+                generalThreadPool.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        lifecycle.stopped();
+        proxyLogger.debug(lifecycle.toString());
+
+        instance = null;
+        proxyLogger.info(() -> platform.getMessage(ProxyMessage.SHUTDOWN_DONE));
+
+        // Make sure the last lines reach the file before closing it
+        if (logFiles != null) {
+            ProxyLogger.flush(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            ProxyLogger.removeSink(logFiles);
+            logFiles = null;
+        }
+
+        platform.onProxyStopped();
+    }
+
+    /**
+     * Log the stats of each part that was created
+     */
+    private void logStats(Object... parts) {
+        for (Object part : parts) {
+            if (part != null) {
+                proxyLogger.debug(part.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The phases a session goes through from connecting to being transferred,
+ * each with how long the client has to move on to the next phase
+ */
+public enum SessionState {
+    /**
+     * Connected, waiting for the LoginPacket
+     */
+    CONNECTED(10, TimeUnit.SECONDS),
+    /**
+     * Login received, waiting for the chain and skin data to be verified
+     */
+    VERIFYING(10, TimeUnit.SECONDS),
+    /**
+     * Logged in, waiting for the client to finish the resource pack negotiation
+     */
+    RESOURCE_PACKS(30, TimeUnit.SECONDS),
+    /**
+     * Spawn sequence sent, waiting for the client to initialise the player
+     */
+    SPAWNING(30, TimeUnit.SECONDS),
+    /**
+     * Transfer sent, waiting for the client to leave
+     */
+    TRANSFERRED(10, TimeUnit.SECONDS),
+    /**
+     * Disconnected, no deadline
+     */
+    CLOSED(0, TimeUnit.SECONDS);
+
+    private final long timeoutMillis;
+
+    SessionState(long timeout, TimeUnit unit) {
+        this.timeoutMillis = unit.toMillis(timeout);
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * @return If the session is still logging in, and counts towards the pending login limit
+     */
+    public boolean isPendingLogin() {
+        return this == CONNECTED || this == VERIFYING;
+    }
+
+    /**
+     * @return If the session hasn't been transferred or closed yet, so a drain should wait for it
+     */
+    public boolean isInFlight() {
+        return this != TRANSFERRED && this != CLOSED;
+    }
+}
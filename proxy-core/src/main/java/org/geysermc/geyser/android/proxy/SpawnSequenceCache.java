@@ -25,11 +25,12 @@
 
 package org.geysermc.geyser.android.proxy;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.nukkitx.math.vector.Vector2f;
 import com.nukkitx.math.vector.Vector3f;
 import com.nukkitx.math.vector.Vector3i;
-import com.nukkitx.protocol.bedrock.BedrockServerSession;
+import com.nukkitx.protocol.bedrock.BedrockPacket;
+import com.nukkitx.protocol.bedrock.BedrockPacketCodec;
+import com.nukkitx.protocol.bedrock.BedrockSession;
 import com.nukkitx.protocol.bedrock.data.AuthoritativeMovementMode;
 import com.nukkitx.protocol.bedrock.data.GamePublishSetting;
 import com.nukkitx.protocol.bedrock.data.GameRuleData;
@@ -43,31 +44,79 @@ import com.nukkitx.protocol.bedrock.packet.LevelChunkPacket;
 import com.nukkitx.protocol.bedrock.packet.PlayStatusPacket;
 import com.nukkitx.protocol.bedrock.packet.SetEntityMotionPacket;
 import com.nukkitx.protocol.bedrock.packet.StartGamePacket;
-import com.nukkitx.protocol.bedrock.packet.TransferPacket;
+import com.nukkitx.protocol.bedrock.packet.UnknownPacket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the already encoded packets sent to get a client to spawn, per codec.
+ * None of the spawn packets contain anything player specific, so after the
+ * first encode every spawn is just a copy of the cached bytes.
+ */
+public class SpawnSequenceCache {
 
-import java.net.InetSocketAddress;
-import java.util.UUID;
+    private static final Map<BedrockPacketCodec, EncodedPacket[]> CACHE = new ConcurrentHashMap<>();
 
-public class Player {
+    /**
+     * Get the spawn sequence for the session's codec, encoding it on first use
+     *
+     * @param session The session to get the packets for
+     * @return The spawn packets in the order they should be sent
+     */
+    public static List<BedrockPacket> getPackets(BedrockSession session) {
+        BedrockPacketCodec codec = session.getPacketCodec();
+        EncodedPacket[] encoded = CACHE.computeIfAbsent(codec, key -> encode(key, session));
 
-    public final String xuid;
-    public final UUID identity;
-    public final String displayName;
+        List<BedrockPacket> packets = new ArrayList<>(encoded.length);
+        for (EncodedPacket packet : encoded) {
+            packets.add(packet.toPacket());
+        }
 
-    private final BedrockServerSession session;
+        return packets;
+    }
 
-    public Player(JsonNode extraData, BedrockServerSession session) {
-        this.xuid = extraData.get("XUID").asText();
-        this.identity = UUID.fromString(extraData.get("identity").asText());
-        this.displayName = extraData.get("displayName").asText();
+    /**
+     * Clear all the cached sequences
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
 
-        this.session = session;
+    private static EncodedPacket[] encode(BedrockPacketCodec codec, BedrockSession session) {
+        List<BedrockPacket> packets = createPackets();
+        EncodedPacket[] encoded = new EncodedPacket[packets.size()];
+
+        for (int i = 0; i < packets.size(); i++) {
+            BedrockPacket packet = packets.get(i);
+            ByteBuf buffer = ByteBufAllocator.DEFAULT.ioBuffer();
+            try {
+                codec.tryEncode(buffer, packet, session);
+
+                byte[] bytes = new byte[buffer.readableBytes()];
+                buffer.readBytes(bytes);
+                encoded[i] = new EncodedPacket(codec.getId(packet), bytes);
+            } finally {
+                buffer.release();
+            }
+        }
+
+        return encoded;
     }
 
     /**
-     * Send a few different packets to get the client to load in
+     * Build the packets needed to get the client to load in
+     *
+     * @return The spawn packets in the order they should be sent
      */
-    public void sendStartGame() {
+    public static List<BedrockPacket> createPackets() {
         // A lot of this likely doesn't need to be changed
         StartGamePacket startGamePacket = new StartGamePacket();
         startGamePacket.setUniqueEntityId(1);
@@ -124,8 +173,6 @@ public class Player {
         startGamePacket.setMultiplayerCorrelationId("");
         startGamePacket.setServerEngine("");
 
-        session.sendPacket(startGamePacket);
-
         // Send an empty chunk
         LevelChunkPacket data = new LevelChunkPacket();
         data.setChunkX(0);
@@ -133,42 +180,40 @@ public class Player {
         data.setSubChunksLength(0);
         data.setData(PaletteManger.EMPTY_LEVEL_CHUNK_DATA);
         data.setCachingEnabled(false);
-        session.sendPacket(data);
 
         // Send a CreativeContentPacket - required for 1.16.100
         CreativeContentPacket creativeContentPacket = new CreativeContentPacket();
         creativeContentPacket.setContents(new ItemData[0]);
-        session.sendPacket(creativeContentPacket);
 
         // Send the biomes
         BiomeDefinitionListPacket biomeDefinitionListPacket = new BiomeDefinitionListPacket();
         biomeDefinitionListPacket.setDefinitions(PaletteManger.BIOMES_PALETTE);
-        session.sendPacket(biomeDefinitionListPacket);
 
         // Let the client know the player can spawn
         PlayStatusPacket playStatusPacket = new PlayStatusPacket();
         playStatusPacket.setStatus(PlayStatusPacket.Status.PLAYER_SPAWN);
-        session.sendPacket(playStatusPacket);
 
         // Freeze the player
         SetEntityMotionPacket setEntityMotionPacket = new SetEntityMotionPacket();
         setEntityMotionPacket.setRuntimeEntityId(1);
         setEntityMotionPacket.setMotion(Vector3f.ZERO);
-        session.sendPacket(setEntityMotionPacket);
+
+        return Arrays.asList(startGamePacket, data, creativeContentPacket, biomeDefinitionListPacket, playStatusPacket, setEntityMotionPacket);
     }
 
     /**
-     * Send the player to the another server
+     * A single packet body encoded with a specific codec
      */
-    public void connectToServer(String address, int port) {
-        ProxyServer.instance.proxyLogger.info("Sending server transfer packet to " + displayName);
-        // Create an InetSocketAddress to reduce issues with hostnames for PS4
-        // Thanks Extollite
-        InetSocketAddress socketAddress = new InetSocketAddress(address, port);
-
-        TransferPacket transferPacket = new TransferPacket();
-        transferPacket.setAddress(socketAddress.getAddress().getHostAddress());
-        transferPacket.setPort(socketAddress.getPort());
-        session.sendPacket(transferPacket);
+    private record EncodedPacket(int id, byte[] payload) {
+
+        /**
+         * Wrap the cached bytes in a packet the session can send as-is
+         */
+        UnknownPacket toPacket() {
+            UnknownPacket packet = new UnknownPacket();
+            packet.setPacketId(id);
+            packet.setPayload(Unpooled.wrappedBuffer(payload));
+            return packet;
+        }
     }
 }
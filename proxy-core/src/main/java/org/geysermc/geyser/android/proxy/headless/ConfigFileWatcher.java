@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.headless;
+
+import org.geysermc.geyser.android.proxy.ProxyConfig;
+import org.geysermc.geyser.android.proxy.ProxyExecutor;
+import org.geysermc.geyser.android.proxy.ProxyLogger;
+import org.geysermc.geyser.android.proxy.ProxyServer;
+import org.geysermc.geyser.android.proxy.network.BackendAddress;
+import org.geysermc.geyser.android.proxy.network.BalancePolicy;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the headless proxy settings from a properties file, on top of the command line ones,
+ * and applies changes to the running proxy. The file is checked every few seconds, a file
+ * with errors or a backend that doesn't resolve is logged and the current settings are kept.
+ * <pre>
+ * address=play.example.com
+ * port=19132
+ * backends=lobby2.example.com:19132, lobby3.example.com
+ * policy=least_players
+ * motd=LAN Party
+ * max-players=100
+ * max-pending-logins=64
+ * </pre>
+ * Any key left out keeps its command line value.
+ */
+public class ConfigFileWatcher {
+
+    private static final long RELOAD_CHECK_SECONDS = 5;
+
+    private final Path file;
+    private final ProxyConfig defaults;
+    private final ProxyLogger logger;
+
+    private ScheduledFuture<?> reloadTask;
+    private long lastModified = -1;
+
+    /**
+     * @param file The settings file, it doesn't need to exist
+     * @param defaults The settings from the command line
+     * @param logger The logger for reload errors
+     */
+    public ConfigFileWatcher(Path file, ProxyConfig defaults, ProxyLogger logger) {
+        this.file = file;
+        this.defaults = defaults;
+        this.logger = logger;
+    }
+
+    /**
+     * Read the settings for startup, falling back to the command line ones if the file is invalid
+     *
+     * @return The settings to start with
+     */
+    public synchronized ProxyConfig load() {
+        lastModified = lastModified();
+        if (lastModified == 0) {
+            return defaults;
+        }
+
+        try {
+            return read();
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Unable to load {}, using the command line settings", e, file.getFileName());
+            return defaults;
+        }
+    }
+
+    /**
+     * Keep checking the file for changes and apply them to the proxy
+     *
+     * @param proxy The running proxy
+     * @param executor The executor to check and resolve on
+     */
+    public void start(ProxyServer proxy, ProxyExecutor executor) {
+        reloadTask = executor.scheduleBlocking(() -> reload(proxy), RELOAD_CHECK_SECONDS, RELOAD_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (reloadTask != null) {
+            reloadTask.cancel(false);
+        }
+    }
+
+    /**
+     * Apply the file to the proxy if it has changed since it was last read
+     *
+     * @param proxy The running proxy
+     */
+    public synchronized void reload(ProxyServer proxy) {
+        long modified = lastModified();
+        if (modified == lastModified) {
+            return;
+        }
+        lastModified = modified;
+
+        ProxyConfig next;
+        try {
+            // A deleted file goes back to the command line settings
+            next = modified == 0 ? defaults : read();
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Unable to load {}, keeping the current settings", e, file.getFileName());
+            return;
+        }
+
+        List<BackendAddress> unresolvable = next.findUnresolvable();
+        if (!unresolvable.isEmpty()) {
+            logger.warning("Unable to resolve {} from {}, keeping the current settings", unresolvable, file.getFileName());
+            return;
+        }
+
+        proxy.applyConfig(next);
+    }
+
+    private long lastModified() {
+        try {
+            return Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private ProxyConfig read() throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        BackendAddress main = defaults.backends().get(0);
+        String address = properties.getProperty("address", main.host()).trim();
+        int port = parseInt(properties, "port", main.port());
+
+        List<BackendAddress> backends = new ArrayList<>();
+        backends.add(new BackendAddress(address, port));
+        String extra = properties.getProperty("backends");
+        if (extra != null) {
+            backends.addAll(BackendAddress.parseList(extra));
+        } else {
+            backends.addAll(defaults.backends().subList(1, defaults.backends().size()));
+        }
+
+        String policy = properties.getProperty("policy");
+        return new ProxyConfig(backends,
+                policy != null ? BalancePolicy.fromName(policy.trim()) : defaults.balancePolicy(),
+                properties.getProperty("motd", defaults.motd()),
+                parseInt(properties, "max-players", defaults.maxPlayers()),
+                parseInt(properties, "max-pending-logins", defaults.maxPendingLogins()));
+    }
+
+    private static int parseInt(Properties properties, String key, int fallback) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value, e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.headless;
+
+import org.geysermc.geyser.android.proxy.ProxyMessage;
+import org.geysermc.geyser.android.proxy.ProxyPlatform;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A {@link ProxyPlatform} for running the proxy on a plain JVM
+ */
+public class HeadlessPlatform implements ProxyPlatform {
+
+    private final Path storagePath;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    public HeadlessPlatform(Path storagePath) {
+        this.storagePath = storagePath;
+    }
+
+    @Override
+    public String getMessage(ProxyMessage message, Object... args) {
+        return String.format(message.getDefaultMessage(), args);
+    }
+
+    @Override
+    public Path getStoragePath() {
+        return storagePath;
+    }
+
+    @Override
+    public void onProxyStopped() {
+        stopped.countDown();
+    }
+
+    /**
+     * Block the calling thread until the proxy has stopped
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+}
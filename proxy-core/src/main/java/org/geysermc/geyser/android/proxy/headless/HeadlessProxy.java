@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.headless;
+
+import org.geysermc.geyser.android.proxy.ProxyConfig;
+import org.geysermc.geyser.android.proxy.ProxyLogger;
+import org.geysermc.geyser.android.proxy.ProxyServer;
+import org.geysermc.geyser.android.proxy.logging.LogLevel;
+import org.geysermc.geyser.android.proxy.logging.LogRingBuffer;
+import org.geysermc.geyser.android.proxy.network.BackendAddress;
+import org.geysermc.geyser.android.proxy.network.BalancePolicy;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the proxy without Android, for benchmarking, profiling or as a LAN relay box.
+ *
+ * Usage: {@code HeadlessProxy [--address <address>] [--port <port>] [--backend <host:port>]... [--policy <policy>] [--motd <motd>] [--max-players <count>] [--max-pending-logins <count>] [--bind-port <port>] [--listeners <count>] [--dual-stack <true|false>] [--virtual-threads <true|false>] [--log-capacity <records>] [--log-level <level>] [--storage <path>]}
+ *
+ * Each {@code --backend} adds another server to balance transfers across, on top of {@code --address}.
+ * The transfer settings can also be put in {@code proxy.properties} in the storage path, which is
+ * watched for changes while running, see {@link ConfigFileWatcher}.
+ * By default one listener per core is bound to the port when native epoll is available, on both IPv4 and IPv6.
+ */
+public class HeadlessProxy {
+
+    private static final String DEFAULT_ADDRESS = "127.0.0.1";
+    private static final int DEFAULT_PORT = 19132;
+    private static final int LOG_FLUSH_SECONDS = 2;
+
+    public static void main(String[] args) throws InterruptedException {
+        String address = DEFAULT_ADDRESS;
+        int port = DEFAULT_PORT;
+        List<BackendAddress> extraBackends = new ArrayList<>();
+        BalancePolicy policy = BalancePolicy.ROUND_ROBIN;
+        String motd = null;
+        int maxPlayers = ProxyConfig.DEFAULT_MAX_PLAYERS;
+        int maxPendingLogins = ProxyConfig.DEFAULT_MAX_PENDING_LOGINS;
+        int bindPort = DEFAULT_PORT;
+        int listeners = Runtime.getRuntime().availableProcessors();
+        boolean dualStack = true;
+        boolean virtualThreads = false;
+        Path storagePath = Paths.get("").toAbsolutePath();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+                return;
+            }
+
+            String value = args[++i];
+            switch (arg) {
+                case "--address" -> address = value;
+                case "--port" -> {
+                    try {
+                        port = Integer.parseInt(value);
+                        BackendAddress.checkPort(port);
+                    } catch (IllegalArgumentException e) {
+                        usage("Invalid port " + value);
+                        return;
+                    }
+                }
+                case "--backend" -> {
+                    try {
+                        extraBackends.add(BackendAddress.parse(value));
+                    } catch (IllegalArgumentException e) {
+                        usage("Invalid backend " + value);
+                        return;
+                    }
+                }
+                case "--policy" -> policy = BalancePolicy.fromName(value);
+                case "--motd" -> motd = value;
+                case "--bind-port", "--listeners", "--log-capacity", "--max-players", "--max-pending-logins" -> {
+                    try {
+                        int number = Integer.parseInt(value);
+                        switch (arg) {
+                            case "--bind-port" -> {
+                                try {
+                                    BackendAddress.checkPort(number);
+                                } catch (IllegalArgumentException e) {
+                                    usage("Invalid bind port " + value);
+                                    return;
+                                }
+                                bindPort = number;
+                            }
+                            case "--listeners" -> {
+                                if (number < 1) {
+                                    usage("Invalid listener count " + value + ", must be at least 1");
+                                    return;
+                                }
+                                listeners = number;
+                            }
+                            case "--max-players" -> maxPlayers = number;
+                            case "--max-pending-logins" -> maxPendingLogins = number;
+                            default -> {
+                                if (number < 1 || number > LogRingBuffer.MAX_CAPACITY) {
+                                    usage("Invalid log capacity " + value + ", must be 1-" + LogRingBuffer.MAX_CAPACITY);
+                                    return;
+                                }
+                                ProxyLogger.setCapacity(number);
+                            }
+                        }
+                    } catch (NumberFormatException e) {
+                        usage("Invalid number " + value);
+                        return;
+                    }
+                }
+                case "--dual-stack" -> dualStack = Boolean.parseBoolean(value);
+                case "--virtual-threads" -> virtualThreads = Boolean.parseBoolean(value);
+                case "--log-level" -> ProxyLogger.setLevel(LogLevel.fromName(value));
+                case "--storage" -> storagePath = Paths.get(value).toAbsolutePath();
+                default -> {
+                    usage("Unknown argument " + arg);
+                    return;
+                }
+            }
+        }
+
+        // Print the log straight to the console
+        ProxyLogger.listener = System.out::println;
+
+        HeadlessPlatform platform = new HeadlessPlatform(storagePath);
+        List<BackendAddress> backends = new ArrayList<>();
+        backends.add(new BackendAddress(address, port));
+        backends.addAll(extraBackends);
+        ProxyConfig config;
+        try {
+            config = ProxyConfig.of(backends, policy).withMotd(motd).withLimits(maxPlayers, maxPendingLogins);
+        } catch (IllegalArgumentException e) {
+            usage(e.getMessage());
+            return;
+        }
+
+        ConfigFileWatcher configFile = new ConfigFileWatcher(storagePath.resolve("proxy.properties"), config, new ProxyLogger());
+        ProxyServer proxy = new ProxyServer(configFile.load(), platform);
+        proxy.bindPort = bindPort;
+        proxy.listenerCount = listeners;
+        proxy.dualStack = dualStack;
+        proxy.useVirtualThreads = virtualThreads;
+
+        // Stop cleanly on Ctrl+C or SIGTERM
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (!proxy.shuttingDown) {
+                proxy.onDisable();
+            }
+            ProxyLogger.flush(LOG_FLUSH_SECONDS, TimeUnit.SECONDS);
+        }, "Proxy Shutdown"));
+
+        proxy.onEnable();
+        configFile.start(proxy, proxy.generalThreadPool);
+        platform.awaitStop();
+        configFile.stop();
+
+        // The log thread is a daemon, let it print the last lines before exiting
+        ProxyLogger.flush(LOG_FLUSH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: HeadlessProxy [--address <address>] [--port <port>] [--backend <host:port>]... [--policy <policy>] [--motd <motd>] [--max-players <count>] [--max-pending-logins <count>] [--bind-port <port>] [--listeners <count>] [--dual-stack <true|false>] [--virtual-threads <true|false>] [--log-capacity <records>] [--log-level <level>] [--storage <path>]");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Moves log records off the threads that log them. Callers only queue the template
+ * and its arguments, a single background thread formats them, stores them and hands
+ * them to the sinks in batches. When the queue is full records are dropped and counted
+ * rather than making the caller wait.
+ */
+public class LogPipeline {
+
+    /**
+     * The most records that can wait for the log thread
+     */
+    public static final int QUEUE_CAPACITY = 8192;
+
+    /**
+     * The longest a record waits in a sink before the sinks are asked to flush, even while more keep coming
+     */
+    public static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    private static final int BATCH_SIZE = 256;
+
+    private final BlockingQueue<PendingRecord> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<LogSink> sinks = new CopyOnWriteArrayList<>();
+    private final Supplier<LogRingBuffer> records;
+    private final long flushIntervalNanos;
+    private final Thread thread;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private long delivered;
+
+    /**
+     * @param records Where formatted records are stored, looked up for each batch so it can be swapped
+     */
+    public LogPipeline(Supplier<LogRingBuffer> records) {
+        this(records, FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param records Where formatted records are stored, looked up for each batch so it can be swapped
+     * @param flushIntervalMillis The longest a record waits before the sinks are asked to flush
+     */
+    LogPipeline(Supplier<LogRingBuffer> records, long flushIntervalMillis) {
+        this.records = records;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.thread = new Thread(this::run, "Proxy Log Writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queue a record to be formatted on the log thread
+     *
+     * @param level The severity of the record
+     * @param template The message, with a {@code {}} for each argument
+     * @param args The arguments, formatted later so they should not change after logging
+     * @param supplier Builds the message instead of the template when not null
+     * @param error An error to append to the message, or null
+     */
+    public void submit(LogLevel level, String template, Object[] args, Supplier<String> supplier, Throwable error) {
+        if (queue.offer(new PendingRecord(System.currentTimeMillis(), level, template, args, supplier, error))) {
+            submitted.incrementAndGet();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    public void addSink(LogSink sink) {
+        sinks.add(sink);
+    }
+
+    /**
+     * Stop delivering to a sink and close it
+     *
+     * @param sink The sink to remove
+     */
+    public void removeSink(LogSink sink) {
+        if (sinks.remove(sink)) {
+            sink.close();
+        }
+    }
+
+    /**
+     * Wait for everything logged so far to reach the sinks
+     *
+     * @param timeout The longest to wait
+     * @param unit The unit of the timeout
+     * @return If everything was delivered in time
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public synchronized boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = submitted.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (delivered < target) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * @return How many records are waiting for the log thread
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<PendingRecord> pending = new ArrayList<>(BATCH_SIZE);
+        List<LogRecord> batch = new ArrayList<>(BATCH_SIZE + 1);
+        boolean unflushed = false;
+        long flushDue = 0;
+        while (true) {
+            try {
+                PendingRecord first;
+                if (unflushed) {
+                    // Flush on a timer even if records never stop, so a crash loses at most one interval
+                    long wait = flushDue - System.nanoTime();
+                    if (wait <= 0) {
+                        flushSinks();
+                        unflushed = false;
+                        continue;
+                    }
+                    first = queue.poll(wait, TimeUnit.NANOSECONDS);
+                } else {
+                    // Nothing to flush, so sleep until there is something to write
+                    first = queue.take();
+                }
+
+                if (first == null) {
+                    continue;
+                }
+                pending.add(first);
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(pending, BATCH_SIZE - 1);
+
+            LogRingBuffer buffer = records.get();
+            for (PendingRecord record : pending) {
+                batch.add(buffer.add(record.timestamp(), record.level(), record.format()));
+            }
+
+            long lost = dropped.sumThenReset();
+            if (lost > 0) {
+                batch.add(buffer.add(System.currentTimeMillis(), LogLevel.WARN, "Dropped " + lost + " log records, the log thread fell behind"));
+            }
+
+            for (LogSink sink : sinks) {
+                try {
+                    sink.write(batch);
+                } catch (RuntimeException ignored) {
+                    // A broken sink can't log its own failure, the others still get the batch
+                }
+            }
+            batches.increment();
+            if (!unflushed) {
+                flushDue = System.nanoTime() + flushIntervalNanos;
+                unflushed = true;
+            }
+
+            synchronized (this) {
+                delivered += pending.size();
+                notifyAll();
+            }
+            pending.clear();
+            batch.clear();
+        }
+    }
+
+    private void flushSinks() {
+        for (LogSink sink : sinks) {
+            try {
+                sink.flush();
+            } catch (RuntimeException ignored) {
+                // Same as for write, nowhere to report it
+            }
+        }
+    }
+
+    /**
+     * Replace each {@code {}} in the template with the next argument
+     *
+     * @param template The message template
+     * @param args The arguments, may be null
+     * @return The formatted message
+     */
+    public static String format(String template, Object[] args) {
+        if (args == null || args.length == 0) {
+            return template;
+        }
+
+        StringBuilder builder = new StringBuilder(template.length() + 16 * args.length);
+        int start = 0;
+        for (Object arg : args) {
+            int index = template.indexOf("{}", start);
+            if (index < 0) {
+                break;
+            }
+            builder.append(template, start, index).append(arg);
+            start = index + 2;
+        }
+        return builder.append(template, start, template.length()).toString();
+    }
+
+    @Override
+    public String toString() {
+        return "LogPipeline{" +
+                "submitted=" + submitted.get() +
+                ", batches=" + batches.sum() +
+                ", queueDepth=" + queue.size() +
+                ", sinks=" + sinks.size() +
+                '}';
+    }
+
+    private record PendingRecord(long timestamp, LogLevel level, String template, Object[] args, Supplier<String> supplier, Throwable error) {
+
+        String format() {
+            String message;
+            try {
+                message = supplier != null ? supplier.get() : LogPipeline.format(template, args);
+            } catch (RuntimeException e) {
+                message = "Unable to format log message: " + e;
+            }
+            return error != null ? message + ": " + error : message;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed size store of the most recent log records. Writers claim a slot with a
+ * single atomic increment and never wait on each other or on readers, and once
+ * full the oldest records are overwritten.
+ */
+public class LogRingBuffer {
+
+    /**
+     * The most records a buffer can hold, larger capacities are clamped to this
+     */
+    public static final int MAX_CAPACITY = 1 << 20;
+
+    private final AtomicReferenceArray<LogRecord> records;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    /**
+     * @param capacity The most records to keep, rounded up to a power of two and at most {@link #MAX_CAPACITY}
+     */
+    public LogRingBuffer(int capacity) {
+        int size = sizeFor(capacity);
+        this.records = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param capacity The requested capacity
+     * @return The capacity a buffer will actually have, the next power of two between 2 and {@link #MAX_CAPACITY}
+     */
+    public static int sizeFor(int capacity) {
+        // Clamped first, the next power of two above 2^30 doesn't fit in an int
+        int clamped = Math.max(2, Math.min(capacity, MAX_CAPACITY));
+        return Integer.highestOneBit(clamped - 1) << 1;
+    }
+
+    /**
+     * Add a record, overwriting the oldest one if the buffer is full
+     *
+     * @param timestamp When the record was logged, in milliseconds since the epoch
+     * @param level The severity of the record
+     * @param message The message
+     * @return The stored record
+     */
+    public LogRecord add(long timestamp, LogLevel level, String message) {
+        long sequence = next.getAndIncrement();
+        LogRecord record = new LogRecord(sequence, timestamp, level, message);
+        records.set((int) (sequence & mask), record);
+        return record;
+    }
+
+    /**
+     * @return Every record still held, oldest first
+     */
+    public List<LogRecord> snapshot() {
+        return snapshotSince(0);
+    }
+
+    /**
+     * Get the records logged from a point onwards, so a reader can pick up where it left off.
+     * A record still being written when this is called is skipped.
+     *
+     * @param sequence The sequence of the first record wanted
+     * @return The records from that sequence that are still held, oldest first
+     */
+    public List<LogRecord> snapshotSince(long sequence) {
+        long end = next.get();
+        long start = Math.max(sequence, end - records.length());
+
+        List<LogRecord> snapshot = new ArrayList<>((int) Math.max(0, end - start));
+        for (long i = start; i < end; i++) {
+            LogRecord record = records.get((int) (i & mask));
+            // The slot may already hold a newer record, or not have been written yet
+            if (record != null && record.sequence() == i) {
+                snapshot.add(record);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Copy the newest records into a buffer of a different size, keeping their sequences
+     * so readers carry on from where they were
+     *
+     * @param capacity The most records the new buffer keeps
+     * @return The new buffer
+     */
+    public LogRingBuffer resize(int capacity) {
+        LogRingBuffer resized = new LogRingBuffer(capacity);
+        List<LogRecord> current = snapshot();
+        int from = Math.max(0, current.size() - resized.getCapacity());
+        for (LogRecord record : current.subList(from, current.size())) {
+            resized.records.set((int) (record.sequence() & resized.mask), record);
+        }
+        resized.next.set(next.get());
+        return resized;
+    }
+
+    /**
+     * @return The sequence the next record will get
+     */
+    public long getNextSequence() {
+        return next.get();
+    }
+
+    public int getCapacity() {
+        return records.length();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.logging;
+
+import java.util.List;
+
+/**
+ * Somewhere log records are delivered to, such as the console or a file.
+ * Sinks are called on the log thread, never on the thread that logged.
+ */
+public interface LogSink {
+
+    /**
+     * Handle a batch of records, oldest first. The list is reused after this returns.
+     *
+     * @param records The records logged since the last batch
+     */
+    void write(List<LogRecord> records);
+
+    /**
+     * Write out anything buffered, called at most {@link LogPipeline#FLUSH_INTERVAL_MILLIS} after a write
+     */
+    default void flush() {
+    }
+
+    /**
+     * Release anything held by the sink, called once it has been removed
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.logging;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the log on disk as {@code proxy.log} plus older segments. Records are encoded into
+ * a buffer allocated once up front and written out when it fills up or on the pipeline's flush timer.
+ * Once the current file reaches the segment size it is renamed, gzipped in the background
+ * and the oldest segments are deleted to keep the directory under the size cap.
+ */
+public class RollingFileSink implements LogSink {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 1024 * 1024;
+    public static final long DEFAULT_MAX_TOTAL_BYTES = 16 * 1024 * 1024;
+
+    private static final String ACTIVE_NAME = "proxy.log";
+    private static final String SEGMENT_PREFIX = "proxy-";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FLUSH_THRESHOLD = 48 * 1024;
+
+    private static final DateTimeFormatter LINE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+    private static final int STAMP_LENGTH = "yyyyMMdd-HHmmss".length();
+
+    // Oldest first. Segments from the same second get a -n suffix, which as a plain name
+    // would sort before the first segment of that second, and -10 before -2
+    private static final Comparator<Path> SEGMENT_ORDER = Comparator.comparing(RollingFileSink::segmentStamp)
+            .thenComparingInt(RollingFileSink::segmentIndex);
+
+    private final Path directory;
+    private final Path active;
+    private final long segmentBytes;
+    private final long maxTotalBytes;
+    private final Executor compressor;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder line = new StringBuilder(256);
+    private final Object cleanupLock = new Object();
+
+    private FileChannel channel;
+    private long size;
+    private boolean closed;
+    private String lastStamp;
+    private int lastIndex;
+
+    private long bytesWritten;
+    private int rotations;
+    private volatile String failure;
+    private volatile String cleanupFailure;
+
+    /**
+     * Open the log in a directory, appending to the current file if there is one
+     *
+     * @param directory The directory to keep the files in, created if missing
+     * @param segmentBytes The size at which the current file is rotated
+     * @param maxTotalBytes The most disk space all the files together may use
+     * @param compressor Runs the gzip and cleanup work, which may block
+     * @throws IOException If the directory or file can't be opened
+     */
+    public RollingFileSink(Path directory, long segmentBytes, long maxTotalBytes, Executor compressor) throws IOException {
+        this.directory = directory;
+        this.active = directory.resolve(ACTIVE_NAME);
+        this.segmentBytes = segmentBytes;
+        this.maxTotalBytes = maxTotalBytes;
+        this.compressor = compressor;
+
+        Files.createDirectories(directory);
+        open();
+
+        // Pick up segments a previous run didn't get round to compressing
+        compressInBackground(null);
+    }
+
+    @Override
+    public synchronized void write(List<LogRecord> records) {
+        if (closed || failure != null) {
+            return;
+        }
+
+        try {
+            for (LogRecord record : records) {
+                line.setLength(0);
+                LINE_TIME.formatTo(Instant.ofEpochMilli(record.timestamp()), line);
+                line.append(' ').append(record).append('\n');
+                encode(line);
+
+                if (size + buffer.position() >= segmentBytes) {
+                    writeBuffer();
+                    rotate();
+                }
+            }
+
+            if (buffer.position() >= FLUSH_THRESHOLD) {
+                writeBuffer();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (closed || failure != null) {
+            return;
+        }
+
+        try {
+            writeBuffer();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        flush();
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Everything has been written already
+        }
+    }
+
+    private void encode(CharSequence text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (encoder.encode(chars, buffer, true).isOverflow()) {
+            writeBuffer();
+        }
+        encoder.reset();
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            int written = channel.write(buffer);
+            size += written;
+            bytesWritten += written;
+        }
+        buffer.clear();
+    }
+
+    private void open() throws IOException {
+        // FileChannel.open needs API 26 on Android, a stream's channel works everywhere
+        channel = new FileOutputStream(active.toFile(), true).getChannel();
+        size = channel.size();
+    }
+
+    private void rotate() throws IOException {
+        channel.close();
+
+        // Never reuse a name from this second, even if the cap has deleted it, or it would sort as the oldest
+        String stamp = SEGMENT_TIME.format(Instant.now());
+        int index = stamp.equals(lastStamp) ? lastIndex + 1 : 0;
+        Path segment = segmentPath(stamp, index);
+        while (Files.exists(segment) || Files.exists(gzipPath(segment))) {
+            segment = segmentPath(stamp, ++index);
+        }
+        lastStamp = stamp;
+        lastIndex = index;
+        Files.move(active, segment);
+        rotations++;
+
+        open();
+        compressInBackground(segment);
+    }
+
+    private void compressInBackground(Path segment) {
+        try {
+            compressor.execute(() -> {
+                synchronized (cleanupLock) {
+                    try {
+                        if (segment != null) {
+                            compress(segment);
+                        } else {
+                            for (Path leftover : listSegments()) {
+                                if (leftover.getFileName().toString().endsWith(".log")) {
+                                    compress(leftover);
+                                }
+                            }
+                        }
+                        enforceCap();
+                    } catch (IOException e) {
+                        // Only the old segments are affected, keep writing the current file
+                        cleanupFailure = e.toString();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // Shutting down, the segment is compressed next time the log is opened
+        }
+    }
+
+    private void compress(Path segment) throws IOException {
+        Path target = gzipPath(segment);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (InputStream in = Files.newInputStream(segment);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), BUFFER_SIZE)) {
+            // InputStream.transferTo needs API 33 on Android
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+        } catch (NoSuchFileException e) {
+            // Already deleted by the size cap
+            return;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        Files.delete(segment);
+    }
+
+    private void enforceCap() throws IOException {
+        // Leave room for the current file to grow to a full segment before the next check
+        long total = Math.max(Files.size(active), segmentBytes);
+        List<Path> segments = listSegments();
+        long[] sizes = new long[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            sizes[i] = Files.size(segments.get(i));
+            total += sizes[i];
+        }
+
+        for (int i = 0; i < segments.size() && total > maxTotalBytes; i++) {
+            Files.deleteIfExists(segments.get(i));
+            total -= sizes[i];
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && (name.endsWith(".log") || name.endsWith(".log.gz"));
+            }).sorted(SEGMENT_ORDER).forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private static String segmentStamp(Path segment) {
+        String name = segmentName(segment);
+        return name.substring(0, Math.min(STAMP_LENGTH, name.length()));
+    }
+
+    private static int segmentIndex(Path segment) {
+        String name = segmentName(segment);
+        if (name.length() <= STAMP_LENGTH + 1 || name.charAt(STAMP_LENGTH) != '-') {
+            return 0;
+        }
+
+        try {
+            return Integer.parseInt(name.substring(STAMP_LENGTH + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return The name of a segment without the prefix and extensions, such as {@code 20240101-120000-1}
+     */
+    private static String segmentName(Path segment) {
+        String name = segment.getFileName().toString();
+        return name.substring(SEGMENT_PREFIX.length(), name.indexOf(".log"));
+    }
+
+    private Path segmentPath(String stamp, int index) {
+        return directory.resolve(SEGMENT_PREFIX + stamp + (index == 0 ? "" : "-" + index) + ".log");
+    }
+
+    private static Path gzipPath(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + ".gz");
+    }
+
+    private void fail(IOException e) {
+        // The log can't report its own failure, so stop writing and keep the reason for the stats
+        failure = e.toString();
+        buffer.clear();
+    }
+
+    /**
+     * @return Why the files stopped being written, or null if they are fine
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RollingFileSink{" +
+                "directory=" + directory +
+                ", bytesWritten=" + bytesWritten +
+                ", rotations=" + rotations +
+                (failure != null ? ", failure=" + failure : "") +
+                (cleanupFailure != null ? ", cleanupFailure=" + cleanupFailure : "") +
+                '}';
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.login;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes the unpadded base64url used by JWS segments. {@code java.util.Base64}
+ * only exists from Android API 26, so the proxy carries its own decoder that can
+ * also stream a segment straight out of the packet bytes.
+ */
+public final class Base64Url {
+
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < VALUES.length; i++) {
+            VALUES[i] = -1;
+        }
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private Base64Url() {
+    }
+
+    /**
+     * @param encoded The base64url text
+     * @return The decoded bytes
+     * @throws IllegalArgumentException If the text isn't valid base64url
+     */
+    public static byte[] decode(String encoded) {
+        byte[] bytes = encoded.getBytes(StandardCharsets.ISO_8859_1);
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param source The array holding the base64url text
+     * @param offset Where the text starts
+     * @param length The length of the text
+     * @return The decoded bytes
+     * @throws IllegalArgumentException If the text isn't valid base64url
+     */
+    public static byte[] decode(byte[] source, int offset, int length) {
+        length = trimPadding(source, offset, length);
+        if (length % 4 == 1) {
+            throw new IllegalArgumentException("Invalid base64url length " + length);
+        }
+
+        byte[] decoded = new byte[length / 4 * 3 + Math.max(0, length % 4 - 1)];
+        int bits = 0;
+        int bitCount = 0;
+        int out = 0;
+        for (int i = offset; i < offset + length; i++) {
+            bits = bits << 6 | value(source[i]);
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                decoded[out++] = (byte) (bits >> bitCount);
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * Decode a base64url segment as it is read, without copying the whole segment
+     *
+     * @param source The array holding the base64url text
+     * @param offset Where the text starts
+     * @param length The length of the text
+     * @return A stream of the decoded bytes, which throws an {@link IOException} on invalid text
+     */
+    public static InputStream stream(byte[] source, int offset, int length) {
+        int end = offset + trimPadding(source, offset, length);
+        return new InputStream() {
+            private int position = offset;
+            private int bits;
+            private int bitCount;
+
+            @Override
+            public int read() throws IOException {
+                while (bitCount < 8) {
+                    if (position >= end) {
+                        // Leftover bits are padding, but a lone character can't be valid
+                        if (bitCount >= 6) {
+                            throw new IOException("Invalid base64url length");
+                        }
+                        return -1;
+                    }
+
+                    try {
+                        bits = bits << 6 | value(source[position++]);
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException(e.getMessage());
+                    }
+                    bitCount += 6;
+                }
+
+                bitCount -= 8;
+                return (bits >> bitCount) & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int bufferOffset, int bufferLength) throws IOException {
+                if (bufferLength == 0) {
+                    return 0;
+                }
+
+                int count = 0;
+                while (count < bufferLength) {
+                    int value = read();
+                    if (value == -1) {
+                        break;
+                    }
+                    buffer[bufferOffset + count++] = (byte) value;
+                }
+                return count == 0 ? -1 : count;
+            }
+        };
+    }
+
+    private static int trimPadding(byte[] source, int offset, int length) {
+        while (length > 0 && source[offset + length - 1] == '=') {
+            length--;
+        }
+        return length;
+    }
+
+    private static int value(byte character) {
+        int value = character < 0 ? -1 : VALUES[character];
+        if (value == -1) {
+            throw new IllegalArgumentException("Invalid base64url character " + (char) (character & 0xFF));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.login;
+
+import com.nukkitx.network.VarInts;
+import com.nukkitx.protocol.bedrock.BedrockPacketHelper;
+import com.nukkitx.protocol.bedrock.BedrockPacketSerializer;
+import com.nukkitx.protocol.bedrock.packet.LoginPacket;
+import com.nukkitx.protocol.bedrock.v291.serializer.LoginSerializer_v291;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AsciiString;
+
+/**
+ * Reads a LoginPacket like {@link LoginSerializer_v291}, but checks the chain and skin
+ * length prefixes against {@link LoginVerifier#MAX_CHAIN_SIZE} and {@link LoginVerifier#MAX_SKIN_SIZE}
+ * before copying anything. Oversized or cut short data is skipped and replaced with {@link #TOO_LARGE}.
+ */
+public class BoundedLoginSerializer implements BedrockPacketSerializer<LoginPacket> {
+
+    public static final BoundedLoginSerializer INSTANCE = new BoundedLoginSerializer();
+
+    /**
+     * Put in place of chain and skin data that wasn't read, compared by identity
+     */
+    public static final AsciiString TOO_LARGE = new AsciiString(new byte[0], false);
+
+    // The chain and skin data plus their two length prefixes
+    private static final int MAX_JWT_SIZE = LoginVerifier.MAX_CHAIN_SIZE + LoginVerifier.MAX_SKIN_SIZE + 8;
+
+    @Override
+    public void serialize(ByteBuf buffer, BedrockPacketHelper helper, LoginPacket packet) {
+        // The proxy never sends a login, but keep the codec complete
+        LoginSerializer_v291.INSTANCE.serialize(buffer, helper, packet);
+    }
+
+    @Override
+    public void deserialize(ByteBuf buffer, BedrockPacketHelper helper, LoginPacket packet) {
+        packet.setProtocolVersion(buffer.readInt());
+
+        int jwtLength = VarInts.readUnsignedInt(buffer);
+        if (jwtLength < 0 || jwtLength > MAX_JWT_SIZE || jwtLength > buffer.readableBytes()) {
+            buffer.skipBytes(buffer.readableBytes());
+            packet.setChainData(TOO_LARGE);
+            packet.setSkinData(TOO_LARGE);
+            return;
+        }
+
+        ByteBuf jwt = buffer.readSlice(jwtLength);
+        packet.setChainData(readBounded(jwt, LoginVerifier.MAX_CHAIN_SIZE));
+        packet.setSkinData(packet.getChainData() == TOO_LARGE ? TOO_LARGE : readBounded(jwt, LoginVerifier.MAX_SKIN_SIZE));
+    }
+
+    /**
+     * Read a little endian length prefixed string, as long as it is within the limit
+     */
+    private static AsciiString readBounded(ByteBuf buffer, int maxLength) {
+        if (buffer.readableBytes() < 4) {
+            return TOO_LARGE;
+        }
+
+        int length = buffer.readIntLE();
+        if (length < 0 || length > maxLength || length > buffer.readableBytes()) {
+            return TOO_LARGE;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.readBytes(bytes);
+        return new AsciiString(bytes, false);
+    }
+
+    /**
+     * @param packet The login packet
+     * @return If its chain or skin data was over the limit or cut short, and never read
+     */
+    public static boolean isTooLarge(LoginPacket packet) {
+        return packet.getChainData() == TOO_LARGE || packet.getSkinData() == TOO_LARGE;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.login;
+
+import com.nukkitx.protocol.bedrock.util.EncryptionUtils;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An LRU cache of decoded identity public keys, keyed by the base64 key string.
+ * Decoded keys are immutable so can be shared between threads.
+ */
+public class IdentityKeyCache {
+
+    private final int maxEntries;
+    private final Map<String, ECPublicKey> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public IdentityKeyCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ECPublicKey> eldest) {
+                return size() > IdentityKeyCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get the decoded key for a base64 encoded identity public key
+     *
+     * @param encodedKey The base64 encoded key
+     * @return The decoded key
+     * @throws LoginException If the key is invalid
+     */
+    public ECPublicKey get(String encodedKey) throws LoginException {
+        ECPublicKey identityKey;
+        synchronized (entries) {
+            identityKey = entries.get(encodedKey);
+        }
+
+        if (identityKey != null) {
+            hits.increment();
+            return identityKey;
+        }
+
+        // Decode outside the lock, at worst two threads decode the same key
+        misses.increment();
+        identityKey = decode(encodedKey);
+        synchronized (entries) {
+            entries.put(encodedKey, identityKey);
+        }
+
+        return identityKey;
+    }
+
+    private static ECPublicKey decode(String encodedKey) throws LoginException {
+        try {
+            return EncryptionUtils.generateKey(encodedKey);
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException | IllegalArgumentException e) {
+            // IllegalArgumentException is thrown for a key that isn't valid base64
+            throw new LoginException("Invalid identity public key!", e);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Identity key cache: %d/%d entries, %d hits, %d misses", size(), maxEntries, getHits(), getMisses());
+    }
+}
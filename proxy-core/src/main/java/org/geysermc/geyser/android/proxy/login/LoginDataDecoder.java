@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.login;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.netty.util.AsciiString;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+
+import static org.geysermc.geyser.android.proxy.ProxyServer.OBJECT_MAPPER;
+
+/**
+ * Streams the fields the proxy needs out of the LoginPacket chain and skin data,
+ * without building json trees or copying the skin body
+ */
+public class LoginDataDecoder {
+
+    // The chain from a signed in client has 3 entries
+    private static final int MAX_CHAIN_ENTRIES = 8;
+
+    /**
+     * Read the last entry of the chain, which holds the client identity
+     *
+     * @param chainData The raw chain data json
+     * @return The identity JWS
+     * @throws LoginException If the json is invalid or has no chain
+     */
+    public static String readIdentityJws(AsciiString chainData) throws LoginException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(chainData.array(), chainData.arrayOffset(), chainData.length())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new LoginException("Invalid chain data!");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (!"chain".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                if (value != JsonToken.START_ARRAY) {
+                    throw new LoginException("Invalid chain data!");
+                }
+
+                String last = null;
+                int entries = 0;
+                while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                    if (++entries > MAX_CHAIN_ENTRIES) {
+                        throw new LoginException("Too many chain entries!");
+                    }
+                    last = parser.getText();
+                }
+
+                if (last == null || parser.currentToken() != JsonToken.END_ARRAY) {
+                    throw new LoginException("Invalid chain data!");
+                }
+
+                return last;
+            }
+        } catch (IOException e) {
+            throw new LoginException("Unable to read chain data!", e);
+        }
+
+        throw new LoginException("Invalid chain data!");
+    }
+
+    /**
+     * Read the identity public key and client data from the identity JWS payload
+     *
+     * @param identityJws The identity JWS from {@link #readIdentityJws(AsciiString)}
+     * @return The identity public key and the XUID, identity and displayName of the client
+     * @throws LoginException If the payload is invalid or missing fields
+     */
+    public static IdentityPayload readIdentityPayload(String identityJws) throws LoginException {
+        int headerEnd = identityJws.indexOf('.');
+        int payloadEnd = headerEnd == -1 ? -1 : identityJws.indexOf('.', headerEnd + 1);
+        if (payloadEnd == -1) {
+            throw new LoginException("Invalid identity JWS!");
+        }
+
+        byte[] payload;
+        try {
+            payload = Base64Url.decode(identityJws.substring(headerEnd + 1, payloadEnd));
+        } catch (IllegalArgumentException e) {
+            throw new LoginException("Invalid identity JWS!", e);
+        }
+
+        String identityPublicKey = null;
+        ObjectNode extraData = null;
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new LoginException("Invalid identity payload!");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("identityPublicKey".equals(field) && value == JsonToken.VALUE_STRING) {
+                    identityPublicKey = parser.getText();
+                } else if ("extraData".equals(field) && value == JsonToken.START_OBJECT) {
+                    extraData = readExtraData(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new LoginException("Unable to read identity payload!", e);
+        }
+
+        if (identityPublicKey == null) {
+            throw new LoginException("Missing identity public key!");
+        }
+
+        // Make sure the client sent over the username, xuid and other info
+        if (extraData == null || !extraData.has("XUID") || !extraData.has("identity") || !extraData.has("displayName")) {
+            throw new LoginException("Missing client data");
+        }
+
+        return new IdentityPayload(identityPublicKey, extraData);
+    }
+
+    /**
+     * Read the device and input mode from the skin data payload. The payload is
+     * decoded as it is parsed and parsing stops as soon as both are found, so
+     * the skin images after them are never decoded.
+     *
+     * @param skinData The skin data JWS
+     * @return The client's device OS and input mode, 0 for any that are missing
+     * @throws LoginException If the skin data isn't a valid JWS
+     */
+    public static ClientInfo readClientInfo(AsciiString skinData) throws LoginException {
+        byte[] array = skinData.array();
+        int start = skinData.arrayOffset();
+        int end = start + skinData.length();
+
+        int headerEnd = indexOf(array, (byte) '.', start, end);
+        int payloadEnd = headerEnd == -1 ? -1 : indexOf(array, (byte) '.', headerEnd + 1, end);
+        if (payloadEnd == -1) {
+            throw new LoginException("Invalid skin data!");
+        }
+
+        int deviceOs = -1;
+        int inputMode = -1;
+        InputStream payload = Base64Url.stream(array, headerEnd + 1, payloadEnd - headerEnd - 1);
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new LoginException("Invalid skin data!");
+            }
+
+            while ((deviceOs == -1 || inputMode == -1) && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("DeviceOS".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    deviceOs = parser.getIntValue();
+                } else if ("CurrentInputMode".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    inputMode = parser.getIntValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new LoginException("Unable to read skin data!", e);
+        }
+
+        return new ClientInfo(Math.max(deviceOs, 0), Math.max(inputMode, 0));
+    }
+
+    private static ObjectNode readExtraData(JsonParser parser) throws IOException {
+        ObjectNode extraData = OBJECT_MAPPER.createObjectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_STRING && ("XUID".equals(field) || "identity".equals(field) || "displayName".equals(field))) {
+                extraData.put(field, parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return extraData;
+    }
+
+    /**
+     * Check the skin data JWS was signed by the identity public key.
+     * The signature is checked directly over the raw bytes, only the
+     * small header and signature segments are decoded. The algorithm in
+     * the header has to be the one for the key's curve, so a client can't
+     * pick a weaker hash than its key calls for.
+     *
+     * @param skinData The skin data JWS
+     * @param identityPublicKey The client identity public key
+     * @return If the signature is valid
+     * @throws LoginException If the skin data isn't a valid JWS
+     */
+    public static boolean verifySkin(AsciiString skinData, ECPublicKey identityPublicKey) throws LoginException {
+        byte[] array = skinData.array();
+        int start = skinData.arrayOffset();
+        int end = start + skinData.length();
+
+        int headerEnd = indexOf(array, (byte) '.', start, end);
+        int payloadEnd = headerEnd == -1 ? -1 : indexOf(array, (byte) '.', headerEnd + 1, end);
+        if (payloadEnd == -1) {
+            throw new LoginException("Invalid skin data!");
+        }
+
+        byte[] header;
+        byte[] jwsSignature;
+        try {
+            header = Base64Url.decode(array, start, headerEnd - start);
+            jwsSignature = Base64Url.decode(array, payloadEnd + 1, end - payloadEnd - 1);
+        } catch (IllegalArgumentException e) {
+            throw new LoginException("Invalid skin data!", e);
+        }
+
+        JwsAlgorithm algorithm = JwsAlgorithm.forKey(identityPublicKey);
+        if (!algorithm.name().equals(readAlgorithm(header))) {
+            throw new LoginException("JWS algorithm does not match the identity public key!");
+        }
+
+        byte[] der = toDer(jwsSignature, algorithm.signatureLength);
+        try {
+            Signature signature = algorithm.signature.get();
+            signature.initVerify(identityPublicKey);
+            signature.update(array, start, payloadEnd - start);
+            return signature.verify(der);
+        } catch (GeneralSecurityException e) {
+            throw new LoginException("Unable to verify skin data!", e);
+        }
+    }
+
+    private static String readAlgorithm(byte[] header) throws LoginException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(header)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if ("alg".equals(field) && value == JsonToken.VALUE_STRING) {
+                        return parser.getText();
+                    }
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new LoginException("Invalid skin data!", e);
+        }
+
+        throw new LoginException("Missing JWS algorithm!");
+    }
+
+    private static int indexOf(byte[] array, byte value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Convert a JWS ECDSA signature (R and S concatenated) into the DER
+     * encoding used by {@link Signature}
+     *
+     * @param jwsSignature The JWS signature
+     * @param expectedLength The exact length the signature must be for the algorithm
+     */
+    private static byte[] toDer(byte[] jwsSignature, int expectedLength) throws LoginException {
+        if (jwsSignature.length != expectedLength) {
+            throw new LoginException("Invalid skin signature!");
+        }
+
+        int half = jwsSignature.length / 2;
+        byte[] r = integer(jwsSignature, 0, half);
+        byte[] s = integer(jwsSignature, half, half);
+
+        int sequenceLength = 2 + r.length + 2 + s.length;
+        byte[] der = new byte[sequenceLength + (sequenceLength >= 128 ? 3 : 2)];
+        int i = 0;
+        der[i++] = 0x30;
+        if (sequenceLength >= 128) {
+            der[i++] = (byte) 0x81;
+        }
+        der[i++] = (byte) sequenceLength;
+        der[i++] = 0x02;
+        der[i++] = (byte) r.length;
+        System.arraycopy(r, 0, der, i, r.length);
+        i += r.length;
+        der[i++] = 0x02;
+        der[i++] = (byte) s.length;
+        System.arraycopy(s, 0, der, i, s.length);
+        return der;
+    }
+
+    /**
+     * Get the minimal DER integer bytes for an unsigned big endian value
+     */
+    private static byte[] integer(byte[] source, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end - 1 && source[start] == 0) {
+            start++;
+        }
+
+        boolean pad = (source[start] & 0x80) != 0;
+        byte[] integer = new byte[end - start + (pad ? 1 : 0)];
+        System.arraycopy(source, start, integer, pad ? 1 : 0, end - start);
+        return integer;
+    }
+
+    /**
+     * The JWS ECDSA algorithms, each tied to the one curve it is used with
+     */
+    private enum JwsAlgorithm {
+        ES256(256, 64, "SHA256withECDSA"),
+        ES384(384, 96, "SHA384withECDSA"),
+        ES512(521, 132, "SHA512withECDSA");
+
+        private final int fieldSize;
+        private final int signatureLength;
+        private final ThreadLocal<Signature> signature;
+
+        JwsAlgorithm(int fieldSize, int signatureLength, String signatureAlgorithm) {
+            this.fieldSize = fieldSize;
+            this.signatureLength = signatureLength;
+            this.signature = ThreadLocal.withInitial(() -> {
+                try {
+                    return Signature.getInstance(signatureAlgorithm);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(signatureAlgorithm + " is not available", e);
+                }
+            });
+        }
+
+        /**
+         * @param key The key the JWS has to be signed with
+         * @return The only algorithm allowed for the key's curve
+         * @throws LoginException If the key isn't on P-256, P-384 or P-521
+         */
+        static JwsAlgorithm forKey(ECPublicKey key) throws LoginException {
+            int fieldSize = key.getParams().getCurve().getField().getFieldSize();
+            for (JwsAlgorithm algorithm : values()) {
+                if (algorithm.fieldSize == fieldSize) {
+                    return algorithm;
+                }
+            }
+            throw new LoginException("Unsupported identity public key curve!");
+        }
+    }
+
+    /**
+     * The fields the proxy uses from the identity JWS payload
+     *
+     * @param identityPublicKey The base64 encoded client identity public key
+     * @param extraData The XUID, identity and displayName of the client
+     */
+    public record IdentityPayload(String identityPublicKey, ObjectNode extraData) {
+    }
+
+    /**
+     * The fields the proxy uses from the skin data payload
+     *
+     * @param deviceOs The DeviceOS id, such as 1 for Android or 7 for Windows 10
+     * @param inputMode The CurrentInputMode id, such as 1 for mouse or 2 for touch
+     */
+    public record ClientInfo(int deviceOs, int inputMode) {
+    }
+}
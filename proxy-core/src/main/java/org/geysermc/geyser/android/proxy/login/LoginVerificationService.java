@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.login;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.netty.util.AsciiString;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs login verification on a small pool of worker threads so the
+ * JSON parsing and ECDSA checks never block a network event loop
+ */
+public class LoginVerificationService {
+
+    private final ThreadPoolExecutor executor;
+    private final VerifiedIdentityCache identityCache;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+    private final AtomicLong maxVerifyNanos = new AtomicLong();
+
+    /**
+     * @param threads The number of worker threads
+     * @param maxInFlight The maximum number of logins queued or being verified at once
+     * @param identityCache The cache of recently verified identities
+     */
+    public LoginVerificationService(int threads, int maxInFlight, VerifiedIdentityCache identityCache) {
+        this.maxInFlight = maxInFlight;
+        this.identityCache = identityCache;
+
+        AtomicInteger threadId = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "Login Verifier #" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Create a service sized to the available cores
+     */
+    public static LoginVerificationService create() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new LoginVerificationService(Math.max(1, cores - 1), cores * 16, VerifiedIdentityCache.create());
+    }
+
+    /**
+     * Queue a login to be verified
+     *
+     * @param chainData The raw chain data json
+     * @param skinData The skin data JWS
+     * @param callbackExecutor Where to run the callback, normally the session's event loop
+     * @param callback Called with the verified extraData or the failure
+     * @return False if the login was rejected because too many are already being verified
+     */
+    public boolean submit(AsciiString chainData, AsciiString skinData, Executor callbackExecutor, Callback callback) {
+        // Cached logins count towards the limit too, they still have a skin to verify
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                JsonNode extraData = null;
+                LoginException error = null;
+                try {
+                    LoginVerifier.checkSize(chainData, skinData);
+
+                    // Skip reading the chain if it was seen recently, the skin is always checked
+                    ByteBuffer cacheKey = VerifiedIdentityCache.key(chainData);
+                    LoginVerifier.ChainIdentity identity = identityCache.get(cacheKey);
+                    boolean cached = identity != null;
+                    if (!cached) {
+                        identity = LoginVerifier.readIdentity(chainData);
+                    }
+
+                    extraData = LoginVerifier.verify(identity, skinData);
+                    if (!cached) {
+                        // Only remembered once a skin signed by its key has been seen
+                        identityCache.put(cacheKey, identity);
+                    }
+                    verified.increment();
+                } catch (LoginException e) {
+                    error = e;
+                    failed.increment();
+                } catch (RuntimeException e) {
+                    // Malformed data can still throw from the key decoding, the session must hear back either way
+                    error = new LoginException("Invalid login data!", e);
+                    failed.increment();
+                } finally {
+                    recordTime(System.nanoTime() - start);
+                    inFlight.decrementAndGet();
+                }
+
+                JsonNode result = extraData;
+                LoginException resultError = error;
+                callbackExecutor.execute(() -> callback.onVerified(result, resultError));
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+
+        return true;
+    }
+
+    private void recordTime(long nanos) {
+        verifyNanos.add(nanos);
+        maxVerifyNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        identityCache.clear();
+    }
+
+    public VerifiedIdentityCache getIdentityCache() {
+        return identityCache;
+    }
+
+    /**
+     * @return The number of logins waiting for a worker thread
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return The number of logins queued or being verified
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getVerified() {
+        return verified.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The mean time spent verifying a login in microseconds
+     */
+    public double getMeanVerifyMicros() {
+        long count = getVerified() + getFailed();
+        return count == 0 ? 0 : verifyNanos.sum() / 1000d / count;
+    }
+
+    public double getMaxVerifyMicros() {
+        return maxVerifyNanos.get() / 1000d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Login verification: %d verified, %d failed, %d rejected, %d queued, mean %.0fus, max %.0fus",
+                getVerified(), getFailed(), getRejected(), getQueueDepth(), getMeanVerifyMicros(), getMaxVerifyMicros());
+    }
+
+    /**
+     * Called once a login has been verified
+     */
+    public interface Callback {
+        /**
+         * @param extraData The verified extraData, or null if verification failed
+         * @param error The reason verification failed, or null if it succeeded
+         */
+        void onVerified(JsonNode extraData, LoginException error);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.login;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.netty.util.AsciiString;
+
+import java.security.interfaces.ECPublicKey;
+
+/**
+ * Reads and verifies the chain and skin data sent in a LoginPacket.
+ * Each stage is exposed separately so they can be benchmarked on their own.
+ */
+public class LoginVerifier {
+
+    /**
+     * The largest chain data accepted, a signed in client sends around 5KB
+     */
+    public static final int MAX_CHAIN_SIZE = 64 * 1024;
+
+    /**
+     * The largest skin data accepted, persona skins with geometry can reach a few hundred KB
+     */
+    public static final int MAX_SKIN_SIZE = 2 * 1024 * 1024;
+
+    /**
+     * Decoded identity keys shared by all logins
+     */
+    public static final IdentityKeyCache KEY_CACHE = new IdentityKeyCache(256);
+
+    /**
+     * Verify the login data and get the client's extraData
+     *
+     * @param chainData The raw chain data json
+     * @param skinData The skin data JWS
+     * @return The verified extraData containing the XUID, identity and display name,
+     *         along with the DeviceOS and CurrentInputMode from the skin data
+     * @throws LoginException If the data is invalid or fails verification
+     */
+    public static JsonNode verify(AsciiString chainData, AsciiString skinData) throws LoginException {
+        checkSize(chainData, skinData);
+        return verify(readIdentity(chainData), skinData);
+    }
+
+    /**
+     * Verify the skin data against an identity read from the chain and get the client's extraData.
+     * The skin is checked on every login, even when the identity came from a cache.
+     *
+     * @param identity The identity from {@link #readIdentity(AsciiString)}
+     * @param skinData The skin data JWS
+     * @return A copy of the identity's extraData with the DeviceOS and CurrentInputMode added
+     * @throws LoginException If the skin data is invalid or wasn't signed by the identity key
+     */
+    public static JsonNode verify(ChainIdentity identity, AsciiString skinData) throws LoginException {
+        if (!verifySkin(skinData, identity.identityKey())) {
+            throw new LoginException("Invalid identity public key!");
+        }
+
+        // Only trusted once the signature has been checked
+        LoginDataDecoder.ClientInfo clientInfo = LoginDataDecoder.readClientInfo(skinData);
+        ObjectNode extraData = identity.extraData().deepCopy();
+        extraData.put("DeviceOS", clientInfo.deviceOs());
+        extraData.put("CurrentInputMode", clientInfo.inputMode());
+        return extraData;
+    }
+
+    /**
+     * Read the client identity and decode its public key from the chain
+     *
+     * @param chainData The raw chain data json
+     * @return The identity key and client data
+     * @throws LoginException If the chain, payload or key is invalid
+     */
+    public static ChainIdentity readIdentity(AsciiString chainData) throws LoginException {
+        LoginDataDecoder.IdentityPayload payload = readPayload(chainData);
+        return new ChainIdentity(getIdentityKey(payload), payload.extraData());
+    }
+
+    /**
+     * Make sure the login data is within the size limits before it is parsed. Packets read by
+     * {@link BoundedLoginSerializer} never hold anything larger, this covers data from elsewhere.
+     *
+     * @param chainData The raw chain data json
+     * @param skinData The skin data JWS
+     * @throws LoginException If either is too large
+     */
+    public static void checkSize(AsciiString chainData, AsciiString skinData) throws LoginException {
+        if (chainData.length() > MAX_CHAIN_SIZE) {
+            throw new LoginException("Chain data too large (" + chainData.length() + " bytes)");
+        }
+
+        if (skinData.length() > MAX_SKIN_SIZE) {
+            throw new LoginException("Skin data too large (" + skinData.length() + " bytes)");
+        }
+    }
+
+    /**
+     * Read the identity payload from the last entry of the chain
+     *
+     * @param chainData The raw chain data json
+     * @return The identity public key and client data
+     * @throws LoginException If the chain or payload is invalid
+     */
+    public static LoginDataDecoder.IdentityPayload readPayload(AsciiString chainData) throws LoginException {
+        return LoginDataDecoder.readIdentityPayload(LoginDataDecoder.readIdentityJws(chainData));
+    }
+
+    /**
+     * Get the decoded identityPublicKey from {@link #KEY_CACHE}
+     *
+     * @param payload The identity payload
+     * @return The decoded key
+     * @throws LoginException If the key is invalid
+     */
+    public static ECPublicKey getIdentityKey(LoginDataDecoder.IdentityPayload payload) throws LoginException {
+        return KEY_CACHE.get(payload.identityPublicKey());
+    }
+
+    /**
+     * Check the skin data JWS was signed by the identity public key
+     *
+     * @param skinData The skin data JWS
+     * @param identityPublicKey The client identity public key
+     * @return If the signature is valid
+     * @throws LoginException If the skin data isn't a valid JWS
+     */
+    public static boolean verifySkin(AsciiString skinData, ECPublicKey identityPublicKey) throws LoginException {
+        return LoginDataDecoder.verifySkin(skinData, identityPublicKey);
+    }
+
+    /**
+     * What the chain data says about a client, before the skin data is checked
+     *
+     * @param identityKey The decoded identity public key the skin data must be signed with
+     * @param extraData The XUID, identity and displayName of the client, never modified once read
+     */
+    public record ChainIdentity(ECPublicKey identityKey, ObjectNode extraData) {
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.login;
+
+import io.netty.util.AsciiString;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the identity read from recently seen chains so a client that
+ * reconnects within a few seconds with the same chain skips parsing the chain
+ * and decoding its key. The skin data is still verified against the cached key
+ * on every login, so replaying a chain doesn't allow an unsigned skin payload.
+ *
+ * Entries are keyed on a SHA-256 of the raw chain data, which contains the
+ * identity public key, and expire after a short time so a replayed chain
+ * is only trusted for as long as the original client could plausibly retry.
+ */
+public class VerifiedIdentityCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<ByteBuffer, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    /**
+     * @param maxEntries The maximum number of identities to remember
+     * @param ttl How long an identity is remembered for
+     * @param unit The unit of the ttl
+     */
+    public VerifiedIdentityCache(int maxEntries, long ttl, TimeUnit unit) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Entry> eldest) {
+                return size() > VerifiedIdentityCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Create a cache sized for the memory available, so low end phones keep fewer entries
+     */
+    public static VerifiedIdentityCache create() {
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        int maxEntries = maxMemory <= 256L * 1024 * 1024 ? 128 : 1024;
+        return new VerifiedIdentityCache(maxEntries, 30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Hash the chain data into a cache key
+     *
+     * @param chainData The raw chain data json
+     * @return The key for the chain
+     */
+    public static ByteBuffer key(AsciiString chainData) {
+        MessageDigest digest = SHA_256.get();
+        digest.update(chainData.array(), chainData.arrayOffset(), chainData.length());
+        return ByteBuffer.wrap(digest.digest());
+    }
+
+    /**
+     * Get the identity read from a chain
+     *
+     * @param key The key from {@link #key(AsciiString)}
+     * @return The identity, or null if the chain hasn't been seen recently
+     */
+    public LoginVerifier.ChainIdentity get(ByteBuffer key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.created < ttlNanos) {
+                hits.increment();
+                return entry.identity;
+            }
+
+            if (entry != null) {
+                entries.remove(key);
+                expired.increment();
+            }
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Remember the identity read from a chain
+     *
+     * @param key The key from {@link #key(AsciiString)}
+     * @param identity The identity read from the chain
+     */
+    public void put(ByteBuffer key, LoginVerifier.ChainIdentity identity) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            entries.put(key, new Entry(identity, now));
+
+            // Drop anything expired from the front while we hold the lock
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (now - entry.created < ttlNanos) {
+                    break;
+                }
+
+                iterator.remove();
+                expired.increment();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    @Override
+    public String toString() {
+        long total = getHits() + getMisses();
+        return String.format("Identity cache: %d/%d entries, %d hits, %d misses (%.1f%% hit rate), %d expired",
+                size(), maxEntries, getHits(), getMisses(), total == 0 ? 0 : getHits() * 100d / total, getExpired());
+    }
+
+    private record Entry(LoginVerifier.ChainIdentity identity, long created) {
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether to accept a RakNet connection request before any session is created.
+ * Connections are limited per address and globally with token buckets, and by
+ * the number of logins that haven't finished yet.
+ */
+public class AdmissionController {
+
+    // Stop tracking new addresses past this, so a spoofed flood can't grow the map forever
+    private static final int MAX_TRACKED_ADDRESSES = 4096;
+
+    private final double perAddressBurst;
+    private final double perAddressRate;
+    private final TokenBucket global;
+    private final int maxTrackedAddresses;
+    private volatile int maxPendingLogins;
+
+    private final Map<InetAddress, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingLogins = new AtomicInteger();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejectedPending = new LongAdder();
+    private final LongAdder throttledAddress = new LongAdder();
+    private final LongAdder throttledGlobal = new LongAdder();
+    private final LongAdder untracked = new LongAdder();
+
+    /**
+     * @param perAddressBurst Connections an address can make in a burst
+     * @param perAddressRate Connections per second an address can make after the burst
+     * @param globalBurst Connections all addresses can make in a burst
+     * @param globalRate Connections per second all addresses can make after the burst
+     * @param maxPendingLogins The most logins that can be in progress at once
+     */
+    public AdmissionController(double perAddressBurst, double perAddressRate, double globalBurst, double globalRate, int maxPendingLogins) {
+        this(perAddressBurst, perAddressRate, globalBurst, globalRate, maxPendingLogins, MAX_TRACKED_ADDRESSES);
+    }
+
+    AdmissionController(double perAddressBurst, double perAddressRate, double globalBurst, double globalRate, int maxPendingLogins, int maxTrackedAddresses) {
+        this.perAddressBurst = perAddressBurst;
+        this.perAddressRate = perAddressRate;
+        this.global = new TokenBucket(globalBurst, globalRate);
+        this.maxPendingLogins = maxPendingLogins;
+        this.maxTrackedAddresses = maxTrackedAddresses;
+    }
+
+    /**
+     * Create a controller with limits suited to a busy LAN event
+     */
+    public static AdmissionController create() {
+        return new AdmissionController(5, 1, 50, 20, 64);
+    }
+
+    /**
+     * Check if a connection request should be accepted
+     *
+     * @param address The address of the client
+     * @return If the connection should be accepted
+     */
+    public boolean tryAdmit(InetSocketAddress address) {
+        if (pendingLogins.get() >= maxPendingLogins) {
+            rejectedPending.increment();
+            return false;
+        }
+
+        TokenBucket bucket = addressBucket(address.getAddress());
+        if (bucket != null && !bucket.tryAcquire()) {
+            throttledAddress.increment();
+            return false;
+        }
+
+        if (!global.tryAcquire()) {
+            throttledGlobal.increment();
+            return false;
+        }
+
+        accepted.increment();
+        return true;
+    }
+
+    /**
+     * Get the bucket for an address, or null if too many addresses are tracked already,
+     * in which case only the global bucket limits the connection
+     */
+    private TokenBucket addressBucket(InetAddress address) {
+        TokenBucket bucket = buckets.get(address);
+        if (bucket == null) {
+            if (buckets.size() >= maxTrackedAddresses) {
+                untracked.increment();
+                return null;
+            }
+            bucket = buckets.computeIfAbsent(address, key -> new TokenBucket(perAddressBurst, perAddressRate));
+        }
+
+        return bucket;
+    }
+
+    /**
+     * Called when a session starts logging in
+     */
+    public void loginStarted() {
+        pendingLogins.incrementAndGet();
+    }
+
+    /**
+     * Called when a session has finished logging in or has disconnected before finishing
+     */
+    public void loginFinished() {
+        pendingLogins.decrementAndGet();
+    }
+
+    /**
+     * Forget addresses that haven't connected recently, so the buckets don't grow forever
+     */
+    public void cleanup() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /**
+     * Change the pending login limit, logins already in progress are not affected
+     *
+     * @param maxPendingLogins The most logins that can be in progress at once
+     */
+    public void setMaxPendingLogins(int maxPendingLogins) {
+        this.maxPendingLogins = maxPendingLogins;
+    }
+
+    public int getPendingLogins() {
+        return pendingLogins.get();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRejectedPending() {
+        return rejectedPending.sum();
+    }
+
+    public long getThrottledAddress() {
+        return throttledAddress.sum();
+    }
+
+    public long getThrottledGlobal() {
+        return throttledGlobal.sum();
+    }
+
+    /**
+     * @return How many requests were only checked against the global bucket because too many addresses were tracked
+     */
+    public long getUntracked() {
+        return untracked.sum();
+    }
+
+    public int getTrackedAddresses() {
+        return buckets.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Admission: %d accepted, %d rejected (too many pending), %d throttled per address, %d throttled globally, %d untracked, %d pending",
+                getAccepted(), getRejectedPending(), getThrottledAddress(), getThrottledGlobal(), getUntracked(), getPendingLogins());
+    }
+}
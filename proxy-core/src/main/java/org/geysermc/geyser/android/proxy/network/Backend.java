@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import com.nukkitx.protocol.bedrock.BedrockPong;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A server players can be transferred to, with the health details from the last pings
+ */
+public class Backend {
+
+    // Consecutive failed pings before a backend is skipped
+    private static final int MAX_FAILURES = 3;
+
+    private final TargetResolver target;
+
+    private volatile boolean alive;
+    private volatile double rttMillis = -1;
+    private volatile int playerCount;
+    private volatile int maxPlayers;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    // Players sent since the last pong, so least players doesn't send everyone to one backend between pings
+    private final AtomicInteger recentTransfers = new AtomicInteger();
+
+    public Backend(TargetResolver target) {
+        this.target = target;
+    }
+
+    void onPong(BedrockPong pong, long rttNanos) {
+        double rtt = rttNanos / 1_000_000d;
+        rttMillis = rttMillis < 0 ? rtt : rttMillis * 0.7 + rtt * 0.3;
+        playerCount = pong.getPlayerCount();
+        maxPlayers = pong.getMaximumPlayerCount();
+        recentTransfers.set(0);
+        failures.set(0);
+        alive = true;
+    }
+
+    void onPingFailed() {
+        if (failures.incrementAndGet() >= MAX_FAILURES) {
+            alive = false;
+        }
+    }
+
+    void recordTransfer() {
+        recentTransfers.incrementAndGet();
+    }
+
+    public TargetResolver getTarget() {
+        return target;
+    }
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    public boolean isFull() {
+        return maxPlayers > 0 && getLoad() >= maxPlayers;
+    }
+
+    /**
+     * @return The smoothed ping in milliseconds, or -1 if it hasn't replied yet
+     */
+    public double getRttMillis() {
+        return rttMillis;
+    }
+
+    /**
+     * @return The advertised player count plus the players sent since
+     */
+    public int getLoad() {
+        return playerCount + recentTransfers.get();
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:%d (%s, %.1fms, %d/%d players)", target.getHost(), target.getPort(),
+                alive ? "up" : "down", rttMillis, getLoad(), maxPlayers);
+    }
+}
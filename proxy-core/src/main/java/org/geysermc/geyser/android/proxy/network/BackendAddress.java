@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The host and port of a server players can be transferred to
+ */
+public record BackendAddress(String host, int port) {
+
+    public static final int DEFAULT_PORT = 19132;
+
+    public BackendAddress {
+        if (host.isEmpty()) {
+            throw new IllegalArgumentException("Missing host");
+        }
+        checkPort(port);
+    }
+
+    /**
+     * Check a port is one a server can listen on
+     *
+     * @param port The port to check
+     * @throws IllegalArgumentException If the port is outside 1-65535
+     */
+    public static void checkPort(int port) {
+        if (port < 1 || port > 65535) {
+            throw new IllegalArgumentException("Port " + port + " is outside 1-65535");
+        }
+    }
+
+    /**
+     * Parse a backend from {@code host} or {@code host:port}
+     *
+     * @param value The string to parse
+     * @return The parsed backend
+     * @throws IllegalArgumentException If the host is missing or the port is invalid
+     */
+    public static BackendAddress parse(String value) {
+        String trimmed = value.trim();
+        if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+            return new BackendAddress(trimmed.substring(1, trimmed.length() - 1), DEFAULT_PORT);
+        }
+
+        int colon = trimmed.lastIndexOf(':');
+
+        // Only treat the colon as a port separator if this isn't a bare IPv6 address
+        if (colon == -1 || trimmed.indexOf(':') != colon && !trimmed.startsWith("[")) {
+            return new BackendAddress(trimmed, DEFAULT_PORT);
+        }
+
+        String host = trimmed.substring(0, colon);
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+
+        int port;
+        try {
+            port = Integer.parseInt(trimmed.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port in " + value, e);
+        }
+
+        if (port < 1 || port > 65535) {
+            throw new IllegalArgumentException("Invalid port in " + value + ", must be 1-65535");
+        }
+        return new BackendAddress(host, port);
+    }
+
+    /**
+     * Parse a comma or newline separated list of backends, skipping blank entries
+     *
+     * @param value The string to parse
+     * @return The parsed backends
+     */
+    public static List<BackendAddress> parseList(String value) {
+        List<BackendAddress> backends = new ArrayList<>();
+        if (value == null) {
+            return backends;
+        }
+
+        for (String entry : value.split("[,\\n]")) {
+            if (!entry.isBlank()) {
+                backends.add(parse(entry));
+            }
+        }
+        return backends;
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
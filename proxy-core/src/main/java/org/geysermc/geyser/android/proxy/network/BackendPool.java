@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import com.nukkitx.protocol.bedrock.BedrockClient;
+import com.nukkitx.protocol.bedrock.BedrockPong;
+
+import org.geysermc.geyser.android.proxy.ProxyExecutor;
+import org.geysermc.geyser.android.proxy.ProxyLogger;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The servers players can be transferred to. Each one is pinged with a RakNet
+ * unconnected ping on a schedule, and transfers go to the best healthy backend
+ * according to the {@link BalancePolicy}.
+ */
+public class BackendPool {
+
+    private static final long PING_INTERVAL_SECONDS = 5;
+    private static final long PING_TIMEOUT_SECONDS = 2;
+    private static final long RESOLVE_TTL_SECONDS = 60;
+
+    private final List<Backend> backends = new ArrayList<>();
+    private final BalancePolicy policy;
+    private final ProxyLogger logger;
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    private BedrockClient pingClient;
+    private ScheduledFuture<?> pingTask;
+
+    public BackendPool(List<BackendAddress> addresses, BalancePolicy policy, ProxyLogger logger) {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("At least one backend is required");
+        }
+
+        this.policy = policy;
+        this.logger = logger;
+        for (BackendAddress address : addresses) {
+            backends.add(new Backend(new TargetResolver(address.host(), address.port(), logger)));
+        }
+    }
+
+    /**
+     * Start resolving and pinging the backends
+     *
+     * @param executor The executor to run the lookups and pings on
+     */
+    public void start(ProxyExecutor executor) {
+        for (Backend backend : backends) {
+            backend.getTarget().start(executor, RESOLVE_TTL_SECONDS, TimeUnit.SECONDS);
+        }
+
+        // With a single backend there is nothing to balance, so don't bother pinging it
+        if (backends.size() > 1) {
+            pingClient = new BedrockClient(new InetSocketAddress("0.0.0.0", 0));
+            pingClient.bind().join();
+            pingTask = executor.scheduleWithFixedDelay(() -> pingAll(executor), 1, PING_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    public void stop() {
+        if (pingTask != null) {
+            pingTask.cancel(false);
+        }
+
+        if (pingClient != null) {
+            pingClient.close();
+        }
+
+        for (Backend backend : backends) {
+            backend.getTarget().stop();
+        }
+    }
+
+    private void pingAll(ProxyExecutor executor) {
+        for (Backend backend : backends) {
+            if (!backend.getTarget().isResolved()) {
+                backend.onPingFailed();
+                continue;
+            }
+
+            long start = System.nanoTime();
+            CompletableFuture<BedrockPong> future = pingClient.ping(backend.getTarget().getAddress());
+            future.whenComplete((pong, error) -> {
+                if (error != null || pong == null) {
+                    backend.onPingFailed();
+                } else {
+                    backend.onPong(pong, System.nanoTime() - start);
+                }
+            });
+
+            // Count it as failed if there is no reply in time
+            executor.schedule(() -> future.cancel(false), PING_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Pick the backend for a transfer. Dead and full backends are skipped,
+     * unless there is nothing else to pick.
+     *
+     * @return The backend to send the player to
+     */
+    public Backend select() {
+        List<Backend> candidates = new ArrayList<>(backends.size());
+        for (Backend backend : backends) {
+            if (backend.isAlive() && !backend.isFull()) {
+                candidates.add(backend);
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            candidates = backends;
+        }
+
+        Backend selected = switch (policy) {
+            case ROUND_ROBIN -> candidates.get(Math.floorMod(roundRobin.getAndIncrement(), candidates.size()));
+            case LEAST_PLAYERS -> {
+                Backend best = candidates.get(0);
+                for (Backend backend : candidates) {
+                    if (backend.getLoad() < best.getLoad()) {
+                        best = backend;
+                    }
+                }
+                yield best;
+            }
+            case LOWEST_LATENCY -> {
+                Backend best = candidates.get(0);
+                for (Backend backend : candidates) {
+                    if (backend.getRttMillis() >= 0 && (best.getRttMillis() < 0 || backend.getRttMillis() < best.getRttMillis())) {
+                        best = backend;
+                    }
+                }
+                yield best;
+            }
+        };
+
+        selected.recordTransfer();
+        return selected;
+    }
+
+    /**
+     * Find the backend for an address
+     *
+     * @param address The address to look for
+     * @return The backend with that host and port, or null if it isn't in the pool
+     */
+    public Backend find(BackendAddress address) {
+        for (Backend backend : backends) {
+            if (backend.getTarget().getHost().equals(address.host()) && backend.getTarget().getPort() == address.port()) {
+                return backend;
+            }
+        }
+        return null;
+    }
+
+    public List<Backend> getBackends() {
+        return backends;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Backends (" + policy + "):");
+        for (Backend backend : backends) {
+            builder.append("\n  ").append(backend).append(", ").append(backend.getTarget());
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+/**
+ * How {@link BackendPool} picks a backend for each transfer
+ */
+public enum BalancePolicy {
+    /**
+     * Take turns between the healthy backends
+     */
+    ROUND_ROBIN,
+    /**
+     * Pick the healthy backend with the fewest players
+     */
+    LEAST_PLAYERS,
+    /**
+     * Pick the healthy backend with the lowest ping
+     */
+    LOWEST_LATENCY;
+
+    /**
+     * Get a policy by name, ignoring case
+     *
+     * @param name The name of the policy
+     * @return The matching policy, or {@link #ROUND_ROBIN} if none match
+     */
+    public static BalancePolicy fromName(String name) {
+        for (BalancePolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name)) {
+                return policy;
+            }
+        }
+        return ROUND_ROBIN;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import com.nukkitx.protocol.bedrock.BedrockServer;
+import com.nukkitx.protocol.bedrock.BedrockServerEventHandler;
+
+import org.geysermc.geyser.android.proxy.ProxyLogger;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The RakNet socket(s) the proxy listens on. With native epoll several
+ * sockets are bound to the same port with SO_REUSEPORT, so the kernel spreads
+ * pings and logins across that many event loops. Without it, such as on
+ * Android, a single NIO socket is used.
+ */
+public class ListenerGroup {
+
+    private static final boolean EPOLL_AVAILABLE = checkEpoll();
+
+    private final int port;
+    private final int listeners;
+    private final boolean dualStack;
+    private final ProxyLogger logger;
+
+    private BedrockServer server;
+    private InetSocketAddress boundAddress;
+
+    /**
+     * @param port The port to listen on
+     * @param listeners How many sockets to bind, only used when epoll is available
+     * @param dualStack If IPv6 clients should be accepted as well as IPv4
+     * @param logger The logger to report the transport to
+     */
+    public ListenerGroup(int port, int listeners, boolean dualStack, ProxyLogger logger) {
+        this.port = port;
+        this.listeners = EPOLL_AVAILABLE ? Math.max(1, listeners) : 1;
+        this.dualStack = dualStack;
+        this.logger = logger;
+    }
+
+    /**
+     * Bind the sockets and wait until they are ready
+     *
+     * @param handler The handler for pings, connections and sessions
+     */
+    public void bind(BedrockServerEventHandler handler) {
+        if (dualStack) {
+            // A socket bound to :: also accepts IPv4, unless IPv6 is missing or disabled
+            try {
+                bind(new InetSocketAddress("::", port), handler);
+                return;
+            } catch (CompletionException e) {
+                logger.warning("Unable to bind to [::]:{}, falling back to IPv4 only", port);
+            }
+        }
+
+        bind(new InetSocketAddress("0.0.0.0", port), handler);
+    }
+
+    private void bind(InetSocketAddress address, BedrockServerEventHandler handler) {
+        BedrockServer server = new BedrockServer(address, listeners);
+        server.setHandler(handler);
+        try {
+            server.bind().join();
+        } catch (CompletionException e) {
+            server.close();
+            throw e;
+        }
+
+        this.server = server;
+        this.boundAddress = address;
+        logger.debug("Bound {} {} listener(s) on {}", listeners, EPOLL_AVAILABLE ? "epoll" : "nio", getBoundAddress());
+    }
+
+    public void close() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * @return The address and port being listened on, for showing to the user
+     */
+    public String getBoundAddress() {
+        if (boundAddress == null) {
+            return "0.0.0.0:" + port;
+        }
+        String host = boundAddress.getHostString();
+        return (host.contains(":") ? "[" + host + "]" : host) + ":" + port;
+    }
+
+    public int getListeners() {
+        return listeners;
+    }
+
+    /**
+     * @return If the native epoll transport can be used, it is left out of the Android build
+     */
+    public static boolean isEpollAvailable() {
+        return EPOLL_AVAILABLE;
+    }
+
+    private static boolean checkEpoll() {
+        try {
+            Class<?> epoll = Class.forName("io.netty.channel.epoll.Epoll");
+            return (Boolean) epoll.getMethod("isAvailable").invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return false;
+        }
+    }
+}
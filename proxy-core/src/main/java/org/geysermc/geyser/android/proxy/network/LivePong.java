@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import com.nukkitx.protocol.bedrock.BedrockPong;
+
+import org.geysermc.geyser.android.proxy.PlayerRegistry;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers LAN queries with a pong that shows the real player count.
+ * The pong is serialized once and reused until the player count or the
+ * details change, so a query only costs a buffer wrap.
+ */
+public class LivePong {
+
+    // Stop tracking new addresses past this, so a spoofed flood can't grow the map forever
+    private static final int MAX_TRACKED_ADDRESSES = 4096;
+
+    private final PlayerRegistry players;
+    private final double queryBurst;
+    private final double queryRate;
+    private final Map<InetAddress, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private volatile Details details;
+    private volatile Snapshot current;
+
+    private final LongAdder answered = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    /**
+     * @param players The registry to take the player count from
+     * @param queryBurst Queries an address can make in a burst
+     * @param queryRate Queries per second an address can make after the burst
+     */
+    public LivePong(PlayerRegistry players, double queryBurst, double queryRate) {
+        this.players = players;
+        this.queryBurst = queryBurst;
+        this.queryRate = queryRate;
+    }
+
+    /**
+     * Set the details shown in the server list
+     *
+     * @param motd The server name
+     * @param maxPlayers The maximum player count shown
+     * @param protocolVersion The protocol version to advertise
+     * @param minecraftVersion The game version to advertise
+     * @param port The port clients should connect to
+     */
+    public void setDetails(String motd, int maxPlayers, int protocolVersion, String minecraftVersion, int port) {
+        this.details = new Details(motd, maxPlayers, protocolVersion, minecraftVersion, port);
+    }
+
+    /**
+     * Get the pong for a query
+     *
+     * @param address The address of the client querying
+     * @return The pong to send, or null if the address is querying too fast
+     */
+    public BedrockPong onQuery(InetSocketAddress address) {
+        if (!allowQuery(address.getAddress())) {
+            throttled.increment();
+            return null;
+        }
+
+        answered.increment();
+
+        Snapshot snapshot = current;
+        Details currentDetails = details;
+        int playerCount = players.size();
+        if (snapshot == null || snapshot.details() != currentDetails || snapshot.pong().getPlayerCount() != playerCount) {
+            snapshot = rebuild(currentDetails, playerCount);
+        }
+
+        return snapshot.pong();
+    }
+
+    private boolean allowQuery(InetAddress address) {
+        TokenBucket bucket = buckets.get(address);
+        if (bucket == null) {
+            if (buckets.size() >= MAX_TRACKED_ADDRESSES) {
+                return false;
+            }
+            bucket = buckets.computeIfAbsent(address, key -> new TokenBucket(queryBurst, queryRate));
+        }
+
+        return bucket.tryAcquire();
+    }
+
+    private Snapshot rebuild(Details details, int playerCount) {
+        CachedPong pong = new CachedPong();
+        pong.setEdition("MCPE");
+        pong.setMotd(details.motd());
+        pong.setSubMotd(details.motd());
+        pong.setPlayerCount(playerCount);
+        pong.setMaximumPlayerCount(details.maxPlayers());
+        pong.setGameType("Survival");
+        pong.setIpv4Port(details.port());
+        pong.setIpv6Port(details.port());
+        pong.setProtocolVersion(details.protocolVersion());
+        pong.setVersion(details.minecraftVersion());
+        pong.encode();
+
+        // Racing rebuilds are checked again on the next query, so whichever wins is fine
+        Snapshot snapshot = new Snapshot(details, pong);
+        current = snapshot;
+        rebuilds.increment();
+        return snapshot;
+    }
+
+    /**
+     * Forget addresses that haven't queried recently
+     */
+    public void cleanup() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    public long getAnswered() {
+        return answered.sum();
+    }
+
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    public long getRebuilds() {
+        return rebuilds.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pong: %d answered, %d throttled, %d rebuilds", getAnswered(), getThrottled(), getRebuilds());
+    }
+
+    private record Details(String motd, int maxPlayers, int protocolVersion, String minecraftVersion, int port) {
+    }
+
+    private record Snapshot(Details details, CachedPong pong) {
+    }
+}
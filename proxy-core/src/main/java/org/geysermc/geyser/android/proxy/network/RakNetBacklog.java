@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Reads how far behind a RakNet session is, the packets it hasn't sent yet plus the datagrams
+ * the client hasn't acknowledged. The session keeps both private, so they are read reflectively
+ * and the backlog is unknown if the library's internals ever change.
+ * <p>
+ * Only read on the session's event loop, the collections aren't thread safe.
+ */
+public class RakNetBacklog {
+
+    public static final RakNetBacklog RAKNET = new RakNetBacklog("com.nukkitx.network.raknet.RakNetSession");
+
+    private final Class<?> sessionClass;
+    private final Field outgoingPackets;
+    private final Method outgoingSize;
+    private final Field sentDatagrams;
+    private final Method sentSize;
+
+    /**
+     * @param sessionClass The session class with {@code outgoingPackets} and {@code sentDatagrams} fields
+     */
+    RakNetBacklog(String sessionClass) {
+        Class<?> session = null;
+        Field outgoing = null;
+        Method outgoingCount = null;
+        Field sent = null;
+        Method sentCount = null;
+        try {
+            session = Class.forName(sessionClass);
+            outgoing = session.getDeclaredField("outgoingPackets");
+            outgoing.setAccessible(true);
+            outgoingCount = outgoing.getType().getMethod("size");
+            sent = session.getDeclaredField("sentDatagrams");
+            sent.setAccessible(true);
+            sentCount = sent.getType().getMethod("size");
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            session = null;
+        }
+
+        this.sessionClass = session;
+        this.outgoingPackets = outgoing;
+        this.outgoingSize = outgoingCount;
+        this.sentDatagrams = sent;
+        this.sentSize = sentCount;
+    }
+
+    /**
+     * @return If the backlog can be read from this version of the library
+     */
+    public boolean isAvailable() {
+        return sessionClass != null;
+    }
+
+    /**
+     * @param connection The session's connection
+     * @return The packets waiting to be sent plus the datagrams waiting to be acknowledged, or -1 if unknown
+     */
+    public int get(Object connection) {
+        if (!isAvailable() || !sessionClass.isInstance(connection)) {
+            return -1;
+        }
+
+        try {
+            // Both are only created once the session has connected
+            return size(outgoingPackets.get(connection), outgoingSize) + size(sentDatagrams.get(connection), sentSize);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static int size(Object collection, Method size) throws ReflectiveOperationException {
+        return collection == null ? 0 : (Integer) size.invoke(collection);
+    }
+}
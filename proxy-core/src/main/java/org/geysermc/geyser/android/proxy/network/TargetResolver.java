@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import org.geysermc.geyser.android.proxy.ProxyExecutor;
+import org.geysermc.geyser.android.proxy.ProxyLogger;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves a transfer target in the background and keeps the result cached,
+ * so a hostname lookup never happens on a network thread
+ */
+public class TargetResolver {
+
+    private final String host;
+    private final int port;
+    private final ProxyLogger logger;
+
+    private volatile InetSocketAddress resolved;
+    private ScheduledFuture<?> refreshTask;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+    private final AtomicLong maxLookupNanos = new AtomicLong();
+
+    /**
+     * @throws IllegalArgumentException If the port is outside 1-65535
+     */
+    public TargetResolver(String host, int port, ProxyLogger logger) {
+        BackendAddress.checkPort(port);
+        this.host = host;
+        this.port = port;
+        this.logger = logger;
+    }
+
+    /**
+     * Resolve the target now, then again every ttl
+     *
+     * @param executor The executor to resolve on
+     * @param ttl How long a resolved address is used before resolving again
+     * @param unit The unit of the ttl
+     */
+    public void start(ProxyExecutor executor, long ttl, TimeUnit unit) {
+        refreshTask = executor.scheduleBlocking(this::resolve, 0, ttl, unit);
+    }
+
+    public void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+        }
+    }
+
+    /**
+     * Look up the target, keeping the previous address if the lookup fails
+     */
+    public void resolve() {
+        long start = System.nanoTime();
+        try {
+            InetAddress address = InetAddress.getByName(host);
+            InetSocketAddress previous = resolved;
+            resolved = new InetSocketAddress(address, port);
+
+            if (previous == null || !previous.getAddress().equals(address)) {
+                logger.debug("Resolved {} to {}", host, address.getHostAddress());
+            }
+        } catch (UnknownHostException | RuntimeException e) {
+            // Anything thrown here would cancel the scheduled refresh, so keep the last address instead
+            failures.increment();
+            logger.error("Unable to resolve {}{}", e, host, resolved != null ? ", using the last known address" : "");
+        } finally {
+            long nanos = System.nanoTime() - start;
+            lookups.increment();
+            lookupNanos.add(nanos);
+            maxLookupNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    /**
+     * Get the resolved target, or an unresolved address if the lookup hasn't succeeded yet
+     *
+     * @return The target address
+     */
+    public InetSocketAddress getAddress() {
+        InetSocketAddress address = resolved;
+        return address != null ? address : InetSocketAddress.createUnresolved(host, port);
+    }
+
+    /**
+     * Get the address to put in a TransferPacket, the IP if it has been
+     * resolved since some consoles struggle with hostnames, otherwise the hostname
+     *
+     * @return The address to send the client to
+     */
+    public String getTransferAddress() {
+        InetSocketAddress address = resolved;
+        return address != null ? address.getAddress().getHostAddress() : host;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public boolean isResolved() {
+        return resolved != null;
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return The mean lookup time in milliseconds
+     */
+    public double getMeanLookupMillis() {
+        long count = getLookups();
+        return count == 0 ? 0 : lookupNanos.sum() / 1_000_000d / count;
+    }
+
+    public double getMaxLookupMillis() {
+        return maxLookupNanos.get() / 1_000_000d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Target %s:%d: %s, %d lookups, %d failures, mean %.1fms, max %.1fms",
+                host, port, isResolved() ? getTransferAddress() : "unresolved", getLookups(), getFailures(), getMeanLookupMillis(), getMaxLookupMillis());
+    }
+}
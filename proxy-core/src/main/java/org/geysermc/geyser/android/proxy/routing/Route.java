@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.routing;
+
+import org.geysermc.geyser.android.proxy.network.BackendAddress;
+
+import java.util.Locale;
+
+/**
+ * A compiled routing rule, what it matched on and where it sends the player
+ *
+ * @param match The kind of rule
+ * @param target The server to transfer the player to
+ */
+public record Route(Match match, BackendAddress target) {
+
+    /**
+     * The kinds of rule, in the order they are checked
+     */
+    public enum Match {
+        XUID,
+        NAME,
+        SUBNET,
+        DEVICE_OS,
+        INPUT_MODE;
+
+        /**
+         * Get a kind of rule by its name in the routes file
+         *
+         * @param name The name, such as {@code xuid} or {@code os}
+         * @return The matching kind
+         * @throws IllegalArgumentException If there is no such kind
+         */
+        public static Match fromName(String name) {
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "xuid" -> XUID;
+                case "name" -> NAME;
+                case "subnet" -> SUBNET;
+                case "os", "device" -> DEVICE_OS;
+                case "input" -> INPUT_MODE;
+                default -> throw new IllegalArgumentException("Unknown rule type " + name);
+            };
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.routing;
+
+import org.geysermc.geyser.android.proxy.Player;
+import org.geysermc.geyser.android.proxy.ProxyExecutor;
+import org.geysermc.geyser.android.proxy.ProxyLogger;
+import org.geysermc.geyser.android.proxy.network.Backend;
+import org.geysermc.geyser.android.proxy.network.BackendAddress;
+import org.geysermc.geyser.android.proxy.network.BackendPool;
+import org.geysermc.geyser.android.proxy.network.TargetResolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Picks a transfer target for each player from the rules in a routes file.
+ * The file is checked for changes every few seconds and swapped in without
+ * a restart, a file with errors is logged and the previous rules are kept.
+ */
+public class Router {
+
+    private static final long RELOAD_CHECK_SECONDS = 5;
+    private static final long RESOLVE_TTL_SECONDS = 60;
+
+    private final Path file;
+    private BackendPool backends;
+    private final ProxyLogger logger;
+
+    private volatile Snapshot snapshot = new Snapshot(RoutingTable.EMPTY, Map.of());
+    private ProxyExecutor executor;
+    private ScheduledFuture<?> reloadTask;
+    private long lastModified = -1;
+
+    // Resolvers for targets outside the backend pool, guarded by this
+    private Map<BackendAddress, TargetResolver> ownResolvers = Map.of();
+
+    private final Map<Route.Match, LongAdder> matched = new EnumMap<>(Route.Match.class);
+    private final LongAdder unmatched = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder reloadFailures = new LongAdder();
+
+    /**
+     * @param file The routes file, it doesn't need to exist
+     * @param backends The pool to share resolvers with when a rule targets one of its backends
+     * @param logger The logger for reload errors
+     */
+    public Router(Path file, BackendPool backends, ProxyLogger logger) {
+        this.file = file;
+        this.backends = backends;
+        this.logger = logger;
+
+        for (Route.Match match : Route.Match.values()) {
+            matched.put(match, new LongAdder());
+        }
+    }
+
+    /**
+     * Load the routes file and keep checking it for changes
+     *
+     * @param executor The executor to check and resolve on
+     */
+    public void start(ProxyExecutor executor) {
+        this.executor = executor;
+        reload();
+        reloadTask = executor.scheduleBlocking(this::reload, RELOAD_CHECK_SECONDS, RELOAD_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (reloadTask != null) {
+            reloadTask.cancel(false);
+        }
+
+        for (TargetResolver resolver : ownResolvers.values()) {
+            resolver.stop();
+        }
+        ownResolvers = Map.of();
+        snapshot = new Snapshot(RoutingTable.EMPTY, Map.of());
+    }
+
+    /**
+     * Switch to a new backend pool, after the settings have changed
+     *
+     * @param backends The pool to share resolvers with
+     */
+    public synchronized void setBackends(BackendPool backends) {
+        this.backends = backends;
+        apply(snapshot.table());
+    }
+
+    /**
+     * Reload the routes file if it has changed since it was last read
+     */
+    public synchronized void reload() {
+        long modified;
+        try {
+            modified = Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() : 0;
+        } catch (IOException e) {
+            modified = 0;
+        }
+
+        if (modified == lastModified) {
+            return;
+        }
+        lastModified = modified;
+
+        RoutingTable table;
+        try {
+            table = modified == 0 ? RoutingTable.EMPTY : RoutingTable.compile(Files.readAllLines(file, StandardCharsets.UTF_8));
+        } catch (IOException | IllegalArgumentException e) {
+            reloadFailures.increment();
+            logger.error("Unable to load " + file.getFileName() + ", keeping the previous routes", e);
+            return;
+        }
+
+        apply(table);
+
+        reloads.increment();
+        if (modified != 0) {
+            logger.info("Loaded {} routing rules from {}", table.size(), file.getFileName());
+        }
+    }
+
+    /**
+     * Swap in a table along with resolvers for its targets. Targets in the backend
+     * pool share its resolvers, any others get their own which are kept across reloads.
+     */
+    private void apply(RoutingTable table) {
+        Map<BackendAddress, TargetResolver> oldResolvers = ownResolvers;
+        Map<BackendAddress, TargetResolver> newResolvers = new HashMap<>();
+        Map<BackendAddress, TargetResolver> targets = new HashMap<>();
+
+        for (BackendAddress address : table.getTargets()) {
+            Backend backend = backends.find(address);
+            TargetResolver resolver;
+            if (backend != null) {
+                resolver = backend.getTarget();
+            } else {
+                resolver = oldResolvers.get(address);
+                if (resolver == null) {
+                    resolver = new TargetResolver(address.host(), address.port(), logger);
+                    resolver.start(executor, RESOLVE_TTL_SECONDS, TimeUnit.SECONDS);
+                }
+                newResolvers.put(address, resolver);
+            }
+            targets.put(address, resolver);
+        }
+
+        snapshot = new Snapshot(table, Map.copyOf(targets));
+        ownResolvers = newResolvers;
+
+        // Stop the resolvers that are no longer used
+        for (Map.Entry<BackendAddress, TargetResolver> entry : oldResolvers.entrySet()) {
+            if (!newResolvers.containsKey(entry.getKey())) {
+                entry.getValue().stop();
+            }
+        }
+    }
+
+    /**
+     * Find where a player should be sent
+     *
+     * @param player The player being transferred
+     * @return The target from the matching rule, or null to use the backend pool
+     */
+    public TargetResolver route(Player player) {
+        Snapshot current = snapshot;
+        Route route = current.table().lookup(player);
+        if (route == null) {
+            unmatched.increment();
+            return null;
+        }
+
+        matched.get(route.match()).increment();
+        return current.targets().get(route.target());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Routing: " + snapshot.table().size() + " rules, ");
+        for (Map.Entry<Route.Match, LongAdder> entry : matched.entrySet()) {
+            builder.append(entry.getValue().sum()).append(' ').append(entry.getKey().name().toLowerCase(Locale.ROOT)).append(", ");
+        }
+        return builder.append(unmatched.sum()).append(" unmatched, ")
+                .append(reloads.sum()).append(" reloads, ")
+                .append(reloadFailures.sum()).append(" failed reloads").toString();
+    }
+
+    /**
+     * The rules and the resolvers for their targets, swapped together on reload
+     */
+    private record Snapshot(RoutingTable table, Map<BackendAddress, TargetResolver> targets) {
+    }
+}
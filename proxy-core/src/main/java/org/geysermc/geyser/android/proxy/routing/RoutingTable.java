@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.routing;
+
+import org.geysermc.geyser.android.proxy.Player;
+import org.geysermc.geyser.android.proxy.network.BackendAddress;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable set of routing rules compiled into lookup structures, so
+ * routing a player costs the same however many rules there are.
+ * <p>
+ * Rules are read one per line as {@code <type> <value> <host[:port]>}, blank lines
+ * and lines starting with {@code #} are ignored:
+ * <pre>
+ * xuid   2535400000000000 vip.example.com:19132
+ * name   Steve            10.0.0.5:19133
+ * subnet 192.168.1.0/24   lan.example.com
+ * os     switch           console.example.com
+ * input  touch            mobile.example.com
+ * </pre>
+ * When several rules match, the first type in that order wins, and for subnets the longest prefix wins.
+ */
+public class RoutingTable {
+
+    public static final RoutingTable EMPTY = new RoutingTable(Map.of(), Map.of(), new SubnetTrie<>(), new Route[0], new Route[0]);
+
+    // DeviceOS ids as sent in the skin data
+    private static final List<String> DEVICE_NAMES = List.of("unknown", "android", "ios", "osx", "fireos", "gearvr", "hololens",
+            "windows", "win32", "dedicated", "tvos", "playstation", "switch", "xbox", "windows_phone");
+
+    // CurrentInputMode ids as sent in the skin data
+    private static final List<String> INPUT_NAMES = List.of("unknown", "mouse", "touch", "gamepad", "motion_controller");
+
+    private final Map<String, Route> xuids;
+    private final Map<String, Route> names;
+    private final SubnetTrie<Route> subnets;
+    private final Route[] deviceOs;
+    private final Route[] inputModes;
+
+    private RoutingTable(Map<String, Route> xuids, Map<String, Route> names, SubnetTrie<Route> subnets, Route[] deviceOs, Route[] inputModes) {
+        this.xuids = xuids;
+        this.names = names;
+        this.subnets = subnets;
+        this.deviceOs = deviceOs;
+        this.inputModes = inputModes;
+    }
+
+    /**
+     * Compile the rules from a routes file
+     *
+     * @param lines The lines of the file
+     * @return The compiled table
+     * @throws IllegalArgumentException If a line is invalid, with its line number
+     */
+    public static RoutingTable compile(List<String> lines) {
+        Map<String, Route> xuids = new HashMap<>();
+        Map<String, Route> names = new HashMap<>();
+        SubnetTrie<Route> subnets = new SubnetTrie<>();
+        Route[] deviceOs = new Route[DEVICE_NAMES.size()];
+        Route[] inputModes = new Route[INPUT_NAMES.size()];
+
+        // Share one Route per kind and target rather than one per rule
+        Map<Route, Route> routes = new HashMap<>();
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = line.split("\\s+");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": expected <type> <value> <host[:port]>");
+            }
+
+            try {
+                Route.Match match = Route.Match.fromName(parts[0]);
+                Route route = routes.computeIfAbsent(new Route(match, BackendAddress.parse(parts[2])), key -> key);
+                String value = parts[1];
+                switch (match) {
+                    case XUID -> xuids.put(value, route);
+                    case NAME -> names.put(value.toLowerCase(Locale.ROOT), route);
+                    case SUBNET -> subnets.put(value, route);
+                    case DEVICE_OS -> deviceOs[id(DEVICE_NAMES, value)] = route;
+                    case INPUT_MODE -> inputModes[id(INPUT_NAMES, value)] = route;
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+
+        return new RoutingTable(xuids, names, subnets, deviceOs, inputModes);
+    }
+
+    /**
+     * Accept either the name or the numeric id of a device or input mode
+     */
+    private static int id(List<String> known, String value) {
+        int id = known.indexOf(value.toLowerCase(Locale.ROOT));
+        if (id == -1) {
+            try {
+                id = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                id = -1;
+            }
+        }
+
+        if (id < 0 || id >= known.size()) {
+            throw new IllegalArgumentException("Unknown value " + value + ", expected one of " + known);
+        }
+        return id;
+    }
+
+    /**
+     * Find the rule for a player
+     *
+     * @param player The player being transferred
+     * @return The matching route, or null if no rule matches
+     */
+    public Route lookup(Player player) {
+        Route route = xuids.get(player.xuid);
+        if (route != null) {
+            return route;
+        }
+
+        if (!names.isEmpty()) {
+            route = names.get(player.displayName.toLowerCase(Locale.ROOT));
+            if (route != null) {
+                return route;
+            }
+        }
+
+        if (subnets.size() > 0) {
+            InetSocketAddress address = player.getAddress();
+            if (address != null && address.getAddress() != null) {
+                route = subnets.get(address.getAddress());
+                if (route != null) {
+                    return route;
+                }
+            }
+        }
+
+        if (player.deviceOs >= 0 && player.deviceOs < deviceOs.length && deviceOs[player.deviceOs] != null) {
+            return deviceOs[player.deviceOs];
+        }
+
+        if (player.inputMode >= 0 && player.inputMode < inputModes.length) {
+            return inputModes[player.inputMode];
+        }
+
+        return null;
+    }
+
+    /**
+     * @return Every server a rule can send players to
+     */
+    public Set<BackendAddress> getTargets() {
+        Set<BackendAddress> targets = new HashSet<>();
+        xuids.values().forEach(route -> targets.add(route.target()));
+        names.values().forEach(route -> targets.add(route.target()));
+        subnets.forEach(route -> targets.add(route.target()));
+        for (Route route : deviceOs) {
+            if (route != null) targets.add(route.target());
+        }
+        for (Route route : inputModes) {
+            if (route != null) targets.add(route.target());
+        }
+        return Collections.unmodifiableSet(targets);
+    }
+
+    /**
+     * @return The total number of rules
+     */
+    public int size() {
+        int size = xuids.size() + names.size() + subnets.size();
+        for (Route route : deviceOs) {
+            if (route != null) size++;
+        }
+        for (Route route : inputModes) {
+            if (route != null) size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.routing;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A binary prefix trie mapping subnets to values. A lookup walks at most one
+ * node per address bit, so it costs the same however many subnets are stored,
+ * and the longest matching prefix wins.
+ *
+ * @param <T> The type of value stored
+ */
+public class SubnetTrie<T> {
+
+    private final Node<T> ipv4 = new Node<>();
+    private final Node<T> ipv6 = new Node<>();
+    private int size;
+
+    /**
+     * Add a subnet to the trie, replacing any value for the same subnet
+     *
+     * @param cidr The subnet, such as {@code 192.168.0.0/16} or {@code 2001:db8::/32}. A bare address matches only itself.
+     * @param value The value to return for addresses in the subnet
+     * @throws IllegalArgumentException If the subnet is invalid
+     */
+    public void put(String cidr, T value) {
+        int slash = cidr.indexOf('/');
+        byte[] address = parseAddress(slash == -1 ? cidr : cidr.substring(0, slash));
+        int bits = address.length * 8;
+
+        int prefix = bits;
+        if (slash != -1) {
+            try {
+                prefix = Integer.parseInt(cidr.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prefix length in " + cidr, e);
+            }
+            if (prefix < 0 || prefix > bits) {
+                throw new IllegalArgumentException("Invalid prefix length in " + cidr);
+            }
+        }
+
+        Node<T> node = address.length == 4 ? ipv4 : ipv6;
+        for (int i = 0; i < prefix; i++) {
+            if (bit(address, i)) {
+                node = node.one == null ? node.one = new Node<>() : node.one;
+            } else {
+                node = node.zero == null ? node.zero = new Node<>() : node.zero;
+            }
+        }
+
+        if (node.value == null) {
+            size++;
+        }
+        node.value = value;
+    }
+
+    /**
+     * Get the value of the most specific subnet containing an address
+     *
+     * @param address The address to look up
+     * @return The matching value, or null if no subnet contains the address
+     */
+    public T get(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        Node<T> node = bytes.length == 4 ? ipv4 : ipv6;
+        T match = node.value;
+
+        for (int i = 0; i < bytes.length * 8; i++) {
+            node = bit(bytes, i) ? node.one : node.zero;
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                match = node.value;
+            }
+        }
+
+        return match;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Run an action for every stored value
+     *
+     * @param action The action to run
+     */
+    public void forEach(Consumer<T> action) {
+        forEach(ipv4, action);
+        forEach(ipv6, action);
+    }
+
+    private static <T> void forEach(Node<T> node, Consumer<T> action) {
+        if (node == null) {
+            return;
+        }
+
+        if (node.value != null) {
+            action.accept(node.value);
+        }
+        forEach(node.zero, action);
+        forEach(node.one, action);
+    }
+
+    private static boolean bit(byte[] address, int index) {
+        return (address[index >> 3] & (0x80 >> (index & 7))) != 0;
+    }
+
+    private static byte[] parseAddress(String address) {
+        // Only accept literal addresses so a typo never turns into a DNS lookup
+        if (address.isEmpty()) {
+            throw new IllegalArgumentException("Missing subnet address");
+        }
+
+        byte[] bytes = address.indexOf(':') != -1 ? parseIpv6(address) : parseIpv4(address, 0, address.length());
+        if (bytes == null) {
+            throw new IllegalArgumentException("Invalid subnet address " + address);
+        }
+
+        // Java looks up IPv4 mapped addresses as IPv4, so store them that way too
+        if (bytes.length == 16 && isIpv4Mapped(bytes)) {
+            return Arrays.copyOfRange(bytes, 12, 16);
+        }
+        return bytes;
+    }
+
+    private static boolean isIpv4Mapped(byte[] bytes) {
+        for (int i = 0; i < 10; i++) {
+            if (bytes[i] != 0) {
+                return false;
+            }
+        }
+        return bytes[10] == (byte) 0xff && bytes[11] == (byte) 0xff;
+    }
+
+    /**
+     * Parse a dotted quad such as {@code 192.168.0.1}
+     *
+     * @return The 4 address bytes, or null if the text isn't a dotted quad
+     */
+    private static byte[] parseIpv4(String address, int start, int end) {
+        byte[] bytes = new byte[4];
+        int part = 0;
+        int value = 0;
+        int digits = 0;
+
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? address.charAt(i) : '.';
+            if (c == '.') {
+                if (digits == 0 || part == 4) {
+                    return null;
+                }
+                bytes[part++] = (byte) value;
+                value = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9' && digits < 3) {
+                value = value * 10 + (c - '0');
+                digits++;
+                if (value > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+
+        return part == 4 ? bytes : null;
+    }
+
+    /**
+     * Parse an IPv6 address of up to 8 hex groups, with at most one {@code ::}
+     * and optionally a dotted quad in place of the last two groups
+     *
+     * @return The 16 address bytes, or null if the text isn't an IPv6 address
+     */
+    private static byte[] parseIpv6(String address) {
+        int gap = address.indexOf("::");
+        if (gap != -1 && address.indexOf("::", gap + 1) != -1) {
+            return null;
+        }
+
+        byte[] bytes = new byte[16];
+        int head;
+        if (gap == -1) {
+            head = parseGroups(address, 0, address.length(), bytes, 0);
+            return head == 16 ? bytes : null;
+        }
+
+        head = parseGroups(address, 0, gap, bytes, 0);
+        if (head == -1) {
+            return null;
+        }
+
+        // Parse the groups after the gap on their own, then move them to the end
+        byte[] tail = new byte[16];
+        int tailLength = parseGroups(address, gap + 2, address.length(), tail, 0);
+        if (tailLength == -1 || head + tailLength > 14) {
+            return null;
+        }
+
+        System.arraycopy(tail, 0, bytes, 16 - tailLength, tailLength);
+        return bytes;
+    }
+
+    /**
+     * Parse colon separated hex groups into bytes
+     *
+     * @return How many bytes were written, or -1 if the groups are invalid
+     */
+    private static int parseGroups(String address, int start, int end, byte[] bytes, int offset) {
+        if (start == end) {
+            return 0;
+        }
+
+        int position = offset;
+        int groupStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i < end && address.charAt(i) != ':') {
+                continue;
+            }
+
+            int length = i - groupStart;
+            if (i == address.length() && address.indexOf('.', groupStart) != -1) {
+                // A dotted quad at the very end fills the last two groups
+                byte[] ipv4 = parseIpv4(address, groupStart, end);
+                if (ipv4 == null || position + 4 > bytes.length) {
+                    return -1;
+                }
+                System.arraycopy(ipv4, 0, bytes, position, 4);
+                return position + 4 - offset;
+            }
+
+            if (length == 0 || length > 4 || position + 2 > bytes.length) {
+                return -1;
+            }
+
+            int value = 0;
+            for (int j = groupStart; j < i; j++) {
+                int digit = Character.digit(address.charAt(j), 16);
+                if (digit == -1) {
+                    return -1;
+                }
+                value = value << 4 | digit;
+            }
+
+            bytes[position++] = (byte) (value >> 8);
+            bytes[position++] = (byte) value;
+            groupStart = i + 1;
+        }
+
+        return position - offset;
+    }
+
+    private static class Node<T> {
+        private Node<T> zero;
+        private Node<T> one;
+        private T value;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PlayerRegistryTest {
+
+    @Test
+    public void registersAndUnregisters() {
+        PlayerRegistry players = new PlayerRegistry();
+        Player player = player("1");
+
+        assertNull(players.register(player));
+        assertSame(player, players.getByXuid("1"));
+        assertEquals(1, players.size());
+
+        assertSame(player, players.getByIdentity(player.identity));
+        assertSame(player, players.getByAddress(player.getAddress()));
+        assertEquals(List.of(player), players.snapshot());
+
+        assertTrue(players.unregister(player));
+        assertNull(players.getByXuid("1"));
+        assertNull(players.getByIdentity(player.identity));
+        assertNull(players.getByAddress(player.getAddress()));
+        assertEquals(0, players.size());
+        assertEquals(1, players.getUnregistered());
+        assertTrue(players.snapshot().isEmpty());
+    }
+
+    @Test
+    public void replacedSessionCannotRemoveNewerOne() {
+        PlayerRegistry players = new PlayerRegistry();
+        Player old = player("1");
+        Player current = player("1");
+
+        players.register(old);
+        assertSame(old, players.register(current));
+        assertEquals(1, players.size());
+        assertEquals(1, players.getReplaced());
+
+        assertFalse(players.unregister(old));
+        assertSame(current, players.getByXuid("1"));
+        assertEquals(1, players.getStaleRemovals());
+
+        // Only the newer session is left in every index
+        assertNull(players.getByIdentity(old.identity));
+        assertNull(players.getByAddress(old.getAddress()));
+        assertSame(current, players.getByIdentity(current.identity));
+        assertSame(current, players.getByAddress(current.getAddress()));
+        assertEquals(List.of(current), players.snapshot());
+    }
+
+    @Test
+    public void leavingPlayerKeepsNewerPlayerOnSameAddress() {
+        PlayerRegistry players = new PlayerRegistry();
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", 19132);
+        Player leaving = player("1", address);
+        Player joining = player("2", address);
+
+        players.register(leaving);
+        players.register(joining);
+        assertTrue(players.unregister(leaving));
+
+        assertSame(joining, players.getByAddress(address));
+        assertEquals(1, players.size());
+    }
+
+    @Test
+    public void unregisterOfUnknownPlayerIsStale() {
+        PlayerRegistry players = new PlayerRegistry();
+
+        assertFalse(players.unregister(player("1")));
+        assertEquals(0, players.size());
+        assertEquals(1, players.getStaleRemovals());
+    }
+
+    @Test
+    public void countMatchesAfterConcurrentRejoins() throws InterruptedException {
+        PlayerRegistry players = new PlayerRegistry();
+        int threads = 8;
+        int rounds = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < threads; i++) {
+                String xuid = Integer.toString(i % 2);
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int round = 0; round < rounds; round++) {
+                        Player player = player(xuid);
+                        players.register(player);
+                        players.unregister(player);
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        int online = (players.getByXuid("0") == null ? 0 : 1) + (players.getByXuid("1") == null ? 0 : 1);
+        assertEquals(online, players.size());
+        assertEquals(online, players.snapshot().size());
+        for (Player player : players.snapshot()) {
+            assertSame(player, players.getByIdentity(player.identity));
+            assertSame(player, players.getByAddress(player.getAddress()));
+        }
+        assertEquals(players.getRegistered() - players.getReplaced() - players.getUnregistered(), players.size());
+    }
+
+    private static int nextPort = 1;
+
+    private static Player player(String xuid) {
+        return player(xuid, new InetSocketAddress("127.0.0.1", nextPort()));
+    }
+
+    private static synchronized int nextPort() {
+        nextPort = nextPort % 65535 + 1;
+        return nextPort;
+    }
+
+    private static Player player(String xuid, InetSocketAddress address) {
+        ObjectNode extraData = ProxyServer.OBJECT_MAPPER.createObjectNode();
+        extraData.put("XUID", xuid);
+        extraData.put("identity", UUID.randomUUID().toString());
+        extraData.put("displayName", "Player" + xuid);
+        return new Player(extraData, null, address);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import com.nukkitx.protocol.bedrock.BedrockPacket;
+import com.nukkitx.protocol.bedrock.BedrockPacketCodec;
+import com.nukkitx.protocol.bedrock.BedrockPacketDefinition;
+import com.nukkitx.protocol.bedrock.data.PacketCompressionAlgorithm;
+import com.nukkitx.protocol.bedrock.packet.LoginPacket;
+import com.nukkitx.protocol.bedrock.packet.NetworkSettingsPacket;
+import com.nukkitx.protocol.bedrock.packet.RequestNetworkSettingsPacket;
+import com.nukkitx.protocol.bedrock.v560.Bedrock_v560;
+import com.nukkitx.protocol.bedrock.v567.Bedrock_v567;
+import com.nukkitx.protocol.bedrock.v568.Bedrock_v568;
+import com.nukkitx.protocol.bedrock.v575.Bedrock_v575;
+import com.nukkitx.protocol.bedrock.v582.Bedrock_v582;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import org.geysermc.geyser.android.proxy.login.BoundedLoginSerializer;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks the hand built codecs against the full codecs from the protocol library,
+ * so a serializer or helper that changed in a version can't be missed
+ */
+public class ProxyCodecTest {
+
+    @Test
+    public void matchesFullCodecs() {
+        CodecRegistry registry = CodecRegistry.create();
+        List<BedrockPacketCodec> full = List.of(Bedrock_v560.V560_CODEC, Bedrock_v567.V567_CODEC, Bedrock_v568.V568_CODEC,
+                Bedrock_v575.V575_CODEC, Bedrock_v582.V582_CODEC);
+
+        for (BedrockPacketCodec expected : full) {
+            BedrockPacketCodec codec = registry.get(expected.getProtocolVersion());
+            assertNotNull("No codec for " + expected.getProtocolVersion(), codec);
+            assertEquals(expected.getMinecraftVersion(), codec.getMinecraftVersion());
+            assertEquals(expected.getRaknetProtocolVersion(), codec.getRaknetProtocolVersion());
+            assertSame(expected.getHelper(), codec.getHelper());
+
+            for (Class<? extends BedrockPacket> packet : ProxyCodec.PACKETS) {
+                assertPacket(expected, codec, packet);
+            }
+        }
+    }
+
+    @Test
+    public void readsLoginWithBoundedSerializer() {
+        assertSame(BoundedLoginSerializer.INSTANCE, ProxyCodec.COMPAT_CODEC.getPacketDefinition(LoginPacket.class).getSerializer());
+        assertSame(BoundedLoginSerializer.INSTANCE, ProxyCodec.v582().getPacketDefinition(LoginPacket.class).getSerializer());
+    }
+
+    @Test
+    public void compatCodecCompletesNetworkSettingsHandshake() throws Exception {
+        // Newer clients ask for the network settings before logging in, still on the compat codec
+        RequestNetworkSettingsPacket request = new RequestNetworkSettingsPacket();
+        request.setProtocolVersion(582);
+        RequestNetworkSettingsPacket readRequest = roundTrip(ProxyCodec.COMPAT_CODEC, request);
+        assertEquals(582, readRequest.getProtocolVersion());
+
+        NetworkSettingsPacket settings = new NetworkSettingsPacket();
+        settings.setCompressionThreshold(1);
+        settings.setCompressionAlgorithm(PacketCompressionAlgorithm.ZLIB);
+        NetworkSettingsPacket readSettings = roundTrip(ProxyCodec.COMPAT_CODEC, settings);
+        assertEquals(1, readSettings.getCompressionThreshold());
+        assertEquals(PacketCompressionAlgorithm.ZLIB, readSettings.getCompressionAlgorithm());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends BedrockPacket> T roundTrip(BedrockPacketCodec codec, T packet) throws Exception {
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            codec.tryEncode(buffer, packet, null);
+            return (T) codec.tryDecode(buffer, codec.getPacketDefinition(packet.getClass()).getId(), null);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static <T extends BedrockPacket> void assertPacket(BedrockPacketCodec expected, BedrockPacketCodec codec, Class<T> packet) {
+        String name = packet.getSimpleName() + " in " + expected.getProtocolVersion();
+        BedrockPacketDefinition<T> want = expected.getPacketDefinition(packet);
+        BedrockPacketDefinition<T> got = codec.getPacketDefinition(packet);
+        assertNotNull(name, got);
+        assertEquals(name, want.getId(), got.getId());
+
+        if (packet != LoginPacket.class) {
+            assertSame(name, want.getSerializer(), got.getSerializer());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy;
+
+import org.geysermc.geyser.android.proxy.network.BackendAddress;
+import org.geysermc.geyser.android.proxy.network.BalancePolicy;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class ProxyConfigTest {
+
+    private static final List<BackendAddress> BACKENDS = List.of(new BackendAddress("127.0.0.1", 19132));
+
+    @Test
+    public void appliesLimits() {
+        ProxyConfig config = ProxyConfig.of(BACKENDS, BalancePolicy.ROUND_ROBIN).withMotd("LAN").withLimits(10, 2);
+
+        assertEquals("LAN", config.motd());
+        assertEquals(10, config.maxPlayers());
+        assertEquals(2, config.maxPendingLogins());
+    }
+
+    @Test
+    public void rejectsInvalidLimits() {
+        ProxyConfig config = ProxyConfig.of(BACKENDS, BalancePolicy.ROUND_ROBIN);
+
+        assertThrows(IllegalArgumentException.class, () -> config.withLimits(-1, 2));
+        assertThrows(IllegalArgumentException.class, () -> config.withLimits(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> ProxyConfig.of(List.of(), BalancePolicy.ROUND_ROBIN));
+    }
+
+    @Test
+    public void findsUnresolvableBackends() {
+        BackendAddress missing = new BackendAddress("backend.invalid", 19132);
+        ProxyConfig config = ProxyConfig.of(List.of(BACKENDS.get(0), missing), BalancePolicy.ROUND_ROBIN);
+
+        assertEquals(List.of(missing), config.findUnresolvable());
+        assertTrue(ProxyConfig.of(BACKENDS, BalancePolicy.ROUND_ROBIN).findUnresolvable().isEmpty());
+    }
+}
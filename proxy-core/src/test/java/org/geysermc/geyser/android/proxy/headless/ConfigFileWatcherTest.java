@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.headless;
+
+import org.geysermc.geyser.android.proxy.ProxyConfig;
+import org.geysermc.geyser.android.proxy.ProxyLogger;
+import org.geysermc.geyser.android.proxy.network.BackendAddress;
+import org.geysermc.geyser.android.proxy.network.BalancePolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ConfigFileWatcherTest {
+
+    private static final ProxyConfig DEFAULTS = ProxyConfig.of(List.of(new BackendAddress("127.0.0.1", 19132), new BackendAddress("127.0.0.2", 19132)),
+            BalancePolicy.ROUND_ROBIN);
+
+    private Path directory;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("proxy-config");
+        file = directory.resolve("proxy.properties");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.delete(directory);
+    }
+
+    @Test
+    public void usesDefaultsWithoutFile() {
+        assertSame(DEFAULTS, new ConfigFileWatcher(file, DEFAULTS, new ProxyLogger()).load());
+    }
+
+    @Test
+    public void readsEverySetting() throws IOException {
+        Files.writeString(file, String.join("\n",
+                "address=127.0.0.3",
+                "port=19133",
+                "backends=127.0.0.4:19134, 127.0.0.5",
+                "policy=least_players",
+                "motd=LAN Party",
+                "max-players=100",
+                "max-pending-logins=8"), StandardCharsets.UTF_8);
+
+        ProxyConfig config = new ConfigFileWatcher(file, DEFAULTS, new ProxyLogger()).load();
+
+        assertEquals(List.of(new BackendAddress("127.0.0.3", 19133), new BackendAddress("127.0.0.4", 19134),
+                new BackendAddress("127.0.0.5", BackendAddress.DEFAULT_PORT)), config.backends());
+        assertEquals(BalancePolicy.LEAST_PLAYERS, config.balancePolicy());
+        assertEquals("LAN Party", config.motd());
+        assertEquals(100, config.maxPlayers());
+        assertEquals(8, config.maxPendingLogins());
+    }
+
+    @Test
+    public void keepsCommandLineValuesForMissingKeys() throws IOException {
+        Files.writeString(file, "motd=LAN Party\n", StandardCharsets.UTF_8);
+
+        ProxyConfig config = new ConfigFileWatcher(file, DEFAULTS, new ProxyLogger()).load();
+
+        assertEquals(DEFAULTS.backends(), config.backends());
+        assertEquals(DEFAULTS.balancePolicy(), config.balancePolicy());
+        assertEquals("LAN Party", config.motd());
+        assertEquals(DEFAULTS.maxPlayers(), config.maxPlayers());
+    }
+
+    @Test
+    public void fallsBackOnInvalidFile() throws IOException {
+        for (String invalid : new String[]{"port=0", "port=abc", "max-pending-logins=0", "max-players=-1", "backends=a:b"}) {
+            Files.writeString(file, invalid, StandardCharsets.UTF_8);
+
+            ProxyConfig config = new ConfigFileWatcher(file, DEFAULTS, new ProxyLogger()).load();
+
+            assertSame(invalid, DEFAULTS, config);
+            assertNull(config.motd());
+        }
+    }
+}
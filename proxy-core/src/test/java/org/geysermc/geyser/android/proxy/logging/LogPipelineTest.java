@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.logging;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogPipelineTest {
+
+    @Test
+    public void formatsTemplates() {
+        assertEquals("a 1 b 2", LogPipeline.format("a {} b {}", new Object[]{1, 2}));
+        assertEquals("a 1 b {}", LogPipeline.format("a {} b {}", new Object[]{1}));
+        assertEquals("a 1", LogPipeline.format("a {}", new Object[]{1, 2}));
+        assertEquals("null", LogPipeline.format("{}", new Object[]{null}));
+        assertEquals("a {}", LogPipeline.format("a {}", null));
+    }
+
+    @Test
+    public void deliversRecordsInOrder() throws InterruptedException {
+        LogRingBuffer buffer = new LogRingBuffer(64);
+        LogPipeline pipeline = new LogPipeline(() -> buffer);
+        RecordingSink sink = new RecordingSink();
+        pipeline.addSink(sink);
+
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(LogLevel.INFO, "Line {}", new Object[]{i}, null, null);
+        }
+        assertTrue(pipeline.flush(5, TimeUnit.SECONDS));
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expected.add("Line " + i);
+        }
+        assertEquals(expected, sink.messages());
+        assertEquals(10, buffer.snapshot().size());
+    }
+
+    @Test
+    public void usesSupplierAndAppendsError() throws InterruptedException {
+        LogRingBuffer buffer = new LogRingBuffer(64);
+        LogPipeline pipeline = new LogPipeline(() -> buffer);
+
+        pipeline.submit(LogLevel.DEBUG, null, null, () -> "Supplied", null);
+        pipeline.submit(LogLevel.ERROR, "Failed {}", new Object[]{"lookup"}, null, new IllegalStateException("boom"));
+        pipeline.submit(LogLevel.WARN, null, null, () -> {
+            throw new IllegalStateException("bad supplier");
+        }, null);
+        assertTrue(pipeline.flush(5, TimeUnit.SECONDS));
+
+        List<LogRecord> records = buffer.snapshot();
+        assertEquals("Supplied", records.get(0).message());
+        assertEquals("Failed lookup: java.lang.IllegalStateException: boom", records.get(1).message());
+        assertEquals(LogLevel.ERROR, records.get(1).level());
+        assertTrue(records.get(2).message().startsWith("Unable to format log message"));
+    }
+
+    @Test
+    public void brokenSinkDoesNotStopOthers() throws InterruptedException {
+        LogPipeline pipeline = new LogPipeline(() -> new LogRingBuffer(64));
+        pipeline.addSink(batch -> {
+            throw new IllegalStateException("broken");
+        });
+        RecordingSink sink = new RecordingSink();
+        pipeline.addSink(sink);
+
+        pipeline.submit(LogLevel.INFO, "Still delivered", null, null, null);
+        assertTrue(pipeline.flush(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("Still delivered"), sink.messages());
+    }
+
+    @Test
+    public void removeSinkClosesIt() {
+        LogPipeline pipeline = new LogPipeline(() -> new LogRingBuffer(64));
+        RecordingSink sink = new RecordingSink();
+        pipeline.addSink(sink);
+
+        pipeline.removeSink(sink);
+
+        assertEquals(0, sink.closed.getCount());
+    }
+
+    @Test
+    public void flushesSinksWhenIdle() throws InterruptedException {
+        LogPipeline pipeline = new LogPipeline(() -> new LogRingBuffer(64));
+        RecordingSink sink = new RecordingSink();
+        pipeline.addSink(sink);
+
+        pipeline.submit(LogLevel.INFO, "Line", null, null, null);
+
+        assertTrue(sink.flushed.await(LogPipeline.FLUSH_INTERVAL_MILLIS * 5, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void flushesSinksWhileRecordsKeepArriving() throws InterruptedException {
+        LogPipeline pipeline = new LogPipeline(() -> new LogRingBuffer(64), 100);
+        RecordingSink sink = new RecordingSink();
+        pipeline.addSink(sink);
+
+        // Never quiet for as long as the interval, so waiting for the log to go idle would never flush
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (System.nanoTime() < end) {
+            pipeline.submit(LogLevel.INFO, "Line", null, null, null);
+            Thread.sleep(10);
+        }
+
+        assertTrue("Flushed " + sink.flushes.get() + " times", sink.flushes.get() >= 3);
+    }
+
+    @Test
+    public void countsDroppedRecords() throws InterruptedException {
+        LogRingBuffer buffer = new LogRingBuffer(LogPipeline.QUEUE_CAPACITY * 2);
+        LogPipeline pipeline = new LogPipeline(() -> buffer);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline.addSink(batch -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Hold the log thread in the sink, then overfill the queue
+        pipeline.submit(LogLevel.INFO, "First", null, null, null);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < LogPipeline.QUEUE_CAPACITY + 10; i++) {
+            pipeline.submit(LogLevel.INFO, "Line", null, null, null);
+        }
+        release.countDown();
+        assertTrue(pipeline.flush(10, TimeUnit.SECONDS));
+
+        List<LogRecord> records = buffer.snapshot();
+        assertEquals(1 + LogPipeline.QUEUE_CAPACITY + 1, records.size());
+        assertTrue(records.stream().anyMatch(record -> record.level() == LogLevel.WARN
+                && record.message().equals("Dropped 10 log records, the log thread fell behind")));
+    }
+
+    private static class RecordingSink implements LogSink {
+        private final List<LogRecord> records = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch flushed = new CountDownLatch(1);
+        private final AtomicInteger flushes = new AtomicInteger();
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void write(List<LogRecord> batch) {
+            records.addAll(batch);
+        }
+
+        @Override
+        public void flush() {
+            flushes.incrementAndGet();
+            flushed.countDown();
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        List<String> messages() {
+            synchronized (records) {
+                return records.stream().map(LogRecord::message).toList();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.logging;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogRingBufferTest {
+
+    @Test
+    public void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(8, new LogRingBuffer(5).getCapacity());
+        assertEquals(8, new LogRingBuffer(8).getCapacity());
+        assertEquals(4096, new LogRingBuffer(4000).getCapacity());
+    }
+
+    @Test
+    public void clampsCapacity() {
+        assertEquals(2, LogRingBuffer.sizeFor(0));
+        assertEquals(2, LogRingBuffer.sizeFor(-5));
+        assertEquals(LogRingBuffer.MAX_CAPACITY, LogRingBuffer.sizeFor(LogRingBuffer.MAX_CAPACITY));
+        assertEquals(LogRingBuffer.MAX_CAPACITY, LogRingBuffer.sizeFor((1 << 30) + 1));
+        assertEquals(LogRingBuffer.MAX_CAPACITY, LogRingBuffer.sizeFor(Integer.MAX_VALUE));
+        assertEquals(LogRingBuffer.MAX_CAPACITY, new LogRingBuffer(Integer.MAX_VALUE).getCapacity());
+    }
+
+    @Test
+    public void keepsRecordsInOrder() {
+        LogRingBuffer buffer = new LogRingBuffer(8);
+        add(buffer, 3);
+
+        assertEquals(List.of("0", "1", "2"), messages(buffer.snapshot()));
+        assertEquals(3, buffer.getNextSequence());
+    }
+
+    @Test
+    public void overwritesOldestWhenFull() {
+        LogRingBuffer buffer = new LogRingBuffer(8);
+        add(buffer, 20);
+
+        List<LogRecord> snapshot = buffer.snapshot();
+        assertEquals(8, snapshot.size());
+        assertEquals(12, snapshot.get(0).sequence());
+        assertEquals(19, snapshot.get(7).sequence());
+    }
+
+    @Test
+    public void snapshotSinceReturnsOnlyNewerRecords() {
+        LogRingBuffer buffer = new LogRingBuffer(8);
+        add(buffer, 5);
+
+        assertEquals(List.of("3", "4"), messages(buffer.snapshotSince(3)));
+        assertTrue(buffer.snapshotSince(5).isEmpty());
+
+        // Asking for records that were overwritten gives what is left
+        add(buffer, 10);
+        assertEquals(8, buffer.snapshotSince(0).size());
+    }
+
+    @Test
+    public void resizeKeepsNewestAndSequences() {
+        LogRingBuffer buffer = new LogRingBuffer(16);
+        add(buffer, 10);
+
+        LogRingBuffer smaller = buffer.resize(4);
+        assertEquals(List.of("6", "7", "8", "9"), messages(smaller.snapshot()));
+        assertEquals(10, smaller.getNextSequence());
+
+        LogRingBuffer larger = smaller.resize(32);
+        assertEquals(List.of("6", "7", "8", "9"), messages(larger.snapshot()));
+        larger.add(0, LogLevel.INFO, "10");
+        assertEquals(List.of("9", "10"), messages(larger.snapshotSince(9)));
+    }
+
+    @Test
+    public void concurrentWritersGetUniqueSequences() throws InterruptedException {
+        LogRingBuffer buffer = new LogRingBuffer(1 << 16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> add(buffer, 10_000));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        List<LogRecord> snapshot = buffer.snapshot();
+        assertEquals(40_000, snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            assertEquals(i, snapshot.get(i).sequence());
+        }
+    }
+
+    private static void add(LogRingBuffer buffer, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.add(0, LogLevel.INFO, Long.toString(buffer.getNextSequence()));
+        }
+    }
+
+    private static List<String> messages(List<LogRecord> records) {
+        return records.stream().map(LogRecord::message).toList();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.logging;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RollingFileSinkTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("proxy-logs");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void writesLines() throws IOException {
+        RollingFileSink sink = new RollingFileSink(directory, 1024 * 1024, 16 * 1024 * 1024, Runnable::run);
+        sink.write(records(0, 2));
+        sink.close();
+
+        List<String> lines = Files.readAllLines(directory.resolve("proxy.log"), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0), lines.get(0).endsWith(" INFO - Line 0000"));
+        assertNull(sink.getFailure());
+    }
+
+    @Test
+    public void appendsToExistingFile() throws IOException {
+        RollingFileSink first = new RollingFileSink(directory, 1024 * 1024, 16 * 1024 * 1024, Runnable::run);
+        first.write(records(0, 1));
+        first.close();
+
+        RollingFileSink second = new RollingFileSink(directory, 1024 * 1024, 16 * 1024 * 1024, Runnable::run);
+        second.write(records(1, 1));
+        second.close();
+
+        assertEquals(List.of("Line 0000", "Line 0001"), messages(Files.readAllLines(directory.resolve("proxy.log"), StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void rotatesAndCompressesSegments() throws IOException {
+        RollingFileSink sink = new RollingFileSink(directory, 512, 1024 * 1024, Runnable::run);
+        sink.write(records(0, 100));
+        sink.close();
+
+        List<Path> segments = segments();
+        assertTrue(segments.size() > 1);
+        for (Path segment : segments) {
+            assertTrue(segment.toString(), segment.getFileName().toString().endsWith(".log.gz"));
+        }
+        assertTrue(Files.size(directory.resolve("proxy.log")) < 512);
+
+        // Nothing is lost across the segments and the current file
+        assertEquals(expected(0, 100), readAll());
+    }
+
+    @Test
+    public void capDeletesOldestSegments() throws IOException {
+        long cap = 2048;
+        RollingFileSink sink = new RollingFileSink(directory, 256, cap, Runnable::run);
+        // Many rotations in the same second, so the segments get -n suffixes
+        sink.write(records(0, 500));
+        sink.close();
+
+        long total = 0;
+        for (Path segment : segments()) {
+            total += Files.size(segment);
+        }
+        total += Files.size(directory.resolve("proxy.log"));
+        assertTrue("Total " + total, total <= cap);
+
+        // What's left is the newest lines, with no gaps
+        List<String> kept = readAll();
+        assertTrue(kept.size() > 0 && kept.size() < 500);
+        assertEquals(expected(500 - kept.size(), kept.size()), kept);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("proxy-"))
+                    .sorted(Comparator.comparingLong(RollingFileSinkTest::segmentOrder))
+                    .toList();
+        }
+    }
+
+    /**
+     * The order segments were written in, from the timestamp and the -n suffix
+     */
+    private static long segmentOrder(Path segment) {
+        String name = segment.getFileName().toString();
+        String stamp = name.substring("proxy-".length(), name.indexOf(".log"));
+        long time = Long.parseLong(stamp.substring(0, 8) + stamp.substring(9, 15));
+        int index = stamp.length() > 15 ? Integer.parseInt(stamp.substring(16)) : 0;
+        return time * 100_000 + index;
+    }
+
+    private List<String> readAll() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Path segment : segments()) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(segment))) {
+                String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                lines.addAll(messages(text.lines().toList()));
+            }
+        }
+        lines.addAll(messages(Files.readAllLines(directory.resolve("proxy.log"), StandardCharsets.UTF_8)));
+        return lines;
+    }
+
+    private static List<LogRecord> records(int from, int count) {
+        List<LogRecord> records = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            records.add(new LogRecord(i, 0, LogLevel.INFO, String.format("Line %04d", i)));
+        }
+        return records;
+    }
+
+    private static List<String> expected(int from, int count) {
+        return records(from, count).stream().map(LogRecord::message).toList();
+    }
+
+    private static List<String> messages(List<String> lines) {
+        return lines.stream().map(line -> line.substring(line.indexOf(" - ") + 3)).toList();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.login;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThrows;
+
+public class Base64UrlTest {
+
+    @Test
+    public void decodesEveryLength() throws IOException {
+        Random random = new Random(1);
+        for (int length = 0; length < 64; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String encoded = Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+
+            assertArrayEquals(data, Base64Url.decode(encoded));
+            assertArrayEquals(data, readAll(stream(encoded)));
+        }
+    }
+
+    @Test
+    public void ignoresPadding() {
+        byte[] data = "ab".getBytes(StandardCharsets.US_ASCII);
+
+        assertArrayEquals(data, Base64Url.decode(Base64.getUrlEncoder().encodeToString(data)));
+    }
+
+    @Test
+    public void rejectsStandardAlphabet() {
+        assertThrows(IllegalArgumentException.class, () -> Base64Url.decode("ab+/"));
+        assertThrows(IOException.class, () -> readAll(stream("ab+/")));
+    }
+
+    @Test
+    public void rejectsImpossibleLength() {
+        assertThrows(IllegalArgumentException.class, () -> Base64Url.decode("abcde"));
+        assertThrows(IOException.class, () -> readAll(stream("abcde")));
+    }
+
+    private static InputStream stream(String encoded) {
+        byte[] bytes = encoded.getBytes(StandardCharsets.US_ASCII);
+        return Base64Url.stream(bytes, 0, bytes.length);
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        return stream.readAllBytes();
+    }
+}
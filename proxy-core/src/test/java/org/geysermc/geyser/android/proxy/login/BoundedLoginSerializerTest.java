@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.login;
+
+import com.nukkitx.network.VarInts;
+import com.nukkitx.protocol.bedrock.packet.LoginPacket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedLoginSerializerTest {
+
+    @Test
+    public void readsLoginWithinLimits() {
+        LoginPacket packet = read(login("{\"chain\":[]}", "a.b.c"));
+
+        assertFalse(BoundedLoginSerializer.isTooLarge(packet));
+        assertEquals(582, packet.getProtocolVersion());
+        assertEquals("{\"chain\":[]}", packet.getChainData().toString());
+        assertEquals("a.b.c", packet.getSkinData().toString());
+    }
+
+    @Test
+    public void skipsOversizedSkinWithoutReadingIt() {
+        // Claim a 100MB skin, only the length prefix is ever looked at
+        ByteBuf jwt = Unpooled.buffer();
+        writeString(jwt, "{\"chain\":[]}");
+        jwt.writeIntLE(100 * 1024 * 1024);
+        jwt.writeBytes(new byte[16]);
+
+        LoginPacket packet = read(wrap(jwt));
+        assertTrue(BoundedLoginSerializer.isTooLarge(packet));
+    }
+
+    @Test
+    public void skipsOversizedChain() {
+        ByteBuf jwt = Unpooled.buffer();
+        jwt.writeIntLE(LoginVerifier.MAX_CHAIN_SIZE + 1);
+        jwt.writeBytes(new byte[16]);
+
+        LoginPacket packet = read(wrap(jwt));
+        assertTrue(BoundedLoginSerializer.isTooLarge(packet));
+    }
+
+    @Test
+    public void skipsLengthBeyondPacket() {
+        ByteBuf buffer = Unpooled.buffer();
+        buffer.writeInt(582);
+        VarInts.writeUnsignedInt(buffer, 64 * 1024);
+        buffer.writeBytes(new byte[16]);
+
+        LoginPacket packet = read(buffer);
+        assertTrue(BoundedLoginSerializer.isTooLarge(packet));
+        assertEquals(0, buffer.readableBytes());
+    }
+
+    private static LoginPacket read(ByteBuf buffer) {
+        LoginPacket packet = new LoginPacket();
+        BoundedLoginSerializer.INSTANCE.deserialize(buffer, null, packet);
+        return packet;
+    }
+
+    private static ByteBuf login(String chainData, String skinData) {
+        ByteBuf jwt = Unpooled.buffer();
+        writeString(jwt, chainData);
+        writeString(jwt, skinData);
+        return wrap(jwt);
+    }
+
+    private static ByteBuf wrap(ByteBuf jwt) {
+        ByteBuf buffer = Unpooled.buffer();
+        buffer.writeInt(582);
+        VarInts.writeUnsignedInt(buffer, jwt.readableBytes());
+        buffer.writeBytes(jwt);
+        return buffer;
+    }
+
+    private static void writeString(ByteBuf buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        buffer.writeIntLE(bytes.length);
+        buffer.writeBytes(bytes);
+    }
+}
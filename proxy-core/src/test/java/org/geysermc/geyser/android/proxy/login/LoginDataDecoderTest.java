@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.login;
+
+import io.netty.util.AsciiString;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class LoginDataDecoderTest {
+
+    private static final String SKIN_PAYLOAD = "{\"SkinId\":\"test\",\"DeviceOS\":7,\"SkinData\":\"AAAA\",\"CurrentInputMode\":2}";
+
+    @Test
+    public void verifiesSkinSignedByIdentityKey() throws Exception {
+        KeyPair key = keyPair("secp384r1");
+        AsciiString skin = sign("ES384", "SHA384withECDSA", 96, key.getPrivate(), SKIN_PAYLOAD);
+
+        assertTrue(LoginDataDecoder.verifySkin(skin, (ECPublicKey) key.getPublic()));
+    }
+
+    @Test
+    public void rejectsSkinSignedByAnotherKey() throws Exception {
+        KeyPair key = keyPair("secp384r1");
+        KeyPair other = keyPair("secp384r1");
+        AsciiString skin = sign("ES384", "SHA384withECDSA", 96, other.getPrivate(), SKIN_PAYLOAD);
+
+        assertFalse(LoginDataDecoder.verifySkin(skin, (ECPublicKey) key.getPublic()));
+    }
+
+    @Test
+    public void rejectsTamperedPayload() throws Exception {
+        KeyPair key = keyPair("secp384r1");
+        String jws = sign("ES384", "SHA384withECDSA", 96, key.getPrivate(), SKIN_PAYLOAD).toString();
+        String[] parts = jws.split("\\.");
+        String tampered = parts[0] + "." + encode(SKIN_PAYLOAD.replace("\"DeviceOS\":7", "\"DeviceOS\":1")) + "." + parts[2];
+
+        assertFalse(LoginDataDecoder.verifySkin(new AsciiString(tampered), (ECPublicKey) key.getPublic()));
+    }
+
+    @Test
+    public void rejectsAlgorithmNotMatchingKeyCurve() throws Exception {
+        // A real signature, but with a weaker hash than the P-384 key calls for
+        KeyPair key = keyPair("secp384r1");
+        AsciiString skin = sign("ES256", "SHA256withECDSA", 96, key.getPrivate(), SKIN_PAYLOAD);
+
+        assertThrows(LoginException.class, () -> LoginDataDecoder.verifySkin(skin, (ECPublicKey) key.getPublic()));
+    }
+
+    @Test
+    public void rejectsWrongSignatureLength() throws Exception {
+        KeyPair key = keyPair("secp256r1");
+        String jws = sign("ES256", "SHA256withECDSA", 64, key.getPrivate(), SKIN_PAYLOAD).toString();
+        int signatureStart = jws.lastIndexOf('.') + 1;
+        byte[] signature = Base64.getUrlDecoder().decode(jws.substring(signatureStart));
+
+        // Still an even length, the old check let this through
+        byte[] padded = new byte[66];
+        System.arraycopy(signature, 0, padded, 1, 32);
+        System.arraycopy(signature, 32, padded, 34, 32);
+        AsciiString skin = new AsciiString(jws.substring(0, signatureStart) + Base64.getUrlEncoder().withoutPadding().encodeToString(padded));
+
+        assertThrows(LoginException.class, () -> LoginDataDecoder.verifySkin(skin, (ECPublicKey) key.getPublic()));
+    }
+
+    @Test
+    public void readsClientInfoFromSkinPayload() throws Exception {
+        KeyPair key = keyPair("secp384r1");
+        AsciiString skin = sign("ES384", "SHA384withECDSA", 96, key.getPrivate(), SKIN_PAYLOAD);
+
+        LoginDataDecoder.ClientInfo info = LoginDataDecoder.readClientInfo(skin);
+        assertEquals(7, info.deviceOs());
+        assertEquals(2, info.inputMode());
+    }
+
+    @Test
+    public void readsIdentityFromLastChainEntry() throws Exception {
+        String identity = "e30." + encode("{\"identityPublicKey\":\"key\",\"extraData\":{\"XUID\":\"123\",\"identity\":\"uuid\",\"displayName\":\"Steve\",\"titleId\":\"1\"}}") + ".c2ln";
+        AsciiString chain = new AsciiString("{\"chain\":[\"first\",\"" + identity + "\"]}");
+
+        String jws = LoginDataDecoder.readIdentityJws(chain);
+        assertEquals(identity, jws);
+
+        LoginDataDecoder.IdentityPayload payload = LoginDataDecoder.readIdentityPayload(jws);
+        assertEquals("key", payload.identityPublicKey());
+        assertEquals("123", payload.extraData().get("XUID").asText());
+        assertEquals("Steve", payload.extraData().get("displayName").asText());
+        assertFalse(payload.extraData().has("titleId"));
+    }
+
+    @Test
+    public void rejectsMissingClientData() {
+        String identity = "e30." + encode("{\"identityPublicKey\":\"key\",\"extraData\":{\"XUID\":\"123\"}}") + ".c2ln";
+
+        assertThrows(LoginException.class, () -> LoginDataDecoder.readIdentityPayload(identity));
+    }
+
+    @Test
+    public void rejectsTooManyChainEntries() {
+        String[] entries = new String[9];
+        Arrays.fill(entries, "\"a.b.c\"");
+        AsciiString chain = new AsciiString("{\"chain\":[" + String.join(",", entries) + "]}");
+
+        assertThrows(LoginException.class, () -> LoginDataDecoder.readIdentityJws(chain));
+    }
+
+    private static KeyPair keyPair(String curve) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec(curve));
+        return generator.generateKeyPair();
+    }
+
+    private static String encode(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Build a JWS with any header algorithm, signed with the given Java algorithm
+     */
+    private static AsciiString sign(String alg, String signatureAlgorithm, int length, PrivateKey key, String payload) throws GeneralSecurityException {
+        String signingInput = encode("{\"alg\":\"" + alg + "\",\"x5u\":\"key\"}") + "." + encode(payload);
+
+        Signature signature = Signature.getInstance(signatureAlgorithm);
+        signature.initSign(key);
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        byte[] jose = toJose(signature.sign(), length);
+
+        return new AsciiString(signingInput + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(jose));
+    }
+
+    /**
+     * Convert a DER ECDSA signature into R and S concatenated, each padded to half the length
+     */
+    private static byte[] toJose(byte[] der, int length) {
+        int offset = der[1] == (byte) 0x81 ? 3 : 2;
+        byte[] jose = new byte[length];
+        for (int part = 0; part < 2; part++) {
+            int partLength = der[offset + 1];
+            int start = offset + 2;
+            // Drop the sign padding byte
+            while (partLength > length / 2) {
+                start++;
+                partLength--;
+            }
+            System.arraycopy(der, start, jose, (part + 1) * (length / 2) - partLength, partLength);
+            offset += 2 + der[offset + 1];
+        }
+        return jose;
+    }
+}
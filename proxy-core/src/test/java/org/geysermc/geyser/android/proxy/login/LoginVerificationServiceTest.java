@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.login;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.netty.util.AsciiString;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LoginVerificationServiceTest {
+
+    private final LoginVerificationService service = new LoginVerificationService(1, 4, VerifiedIdentityCache.create());
+
+    @After
+    public void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void reportsMalformedIdentityKey() throws Exception {
+        String identity = "e30." + encode("{\"identityPublicKey\":\"not base64!\",\"extraData\":{\"XUID\":\"123\",\"identity\":\"uuid\",\"displayName\":\"Steve\"}}") + ".c2ln";
+        AsciiString chain = new AsciiString("{\"chain\":[\"" + identity + "\"]}");
+
+        Result result = verify(chain, new AsciiString("a.b.c"));
+        assertNull(result.extraData());
+        assertNotNull(result.error());
+        assertEquals(1, service.getFailed());
+        assertEquals(0, service.getInFlight());
+    }
+
+    @Test
+    public void reportsUnexpectedFailure() throws Exception {
+        // A missing chain throws a NullPointerException rather than a LoginException
+        Result result = verify(null, new AsciiString("a.b.c"));
+        assertNull(result.extraData());
+        assertTrue(result.error().getCause() instanceof NullPointerException);
+        assertEquals(1, service.getFailed());
+        assertEquals(0, service.getInFlight());
+    }
+
+    private Result verify(AsciiString chainData, AsciiString skinData) throws Exception {
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        assertTrue(service.submit(chainData, skinData, Runnable::run, (extraData, error) -> result.complete(new Result(extraData, error))));
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    private static String encode(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Result(JsonNode extraData, LoginException error) {
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdmissionControllerTest {
+
+    @Test
+    public void throttlesPerAddress() throws UnknownHostException {
+        AdmissionController admission = new AdmissionController(2, 0.001, 100, 100, 10);
+
+        assertTrue(admission.tryAdmit(address(1)));
+        assertTrue(admission.tryAdmit(address(1)));
+        assertFalse(admission.tryAdmit(address(1)));
+        assertTrue(admission.tryAdmit(address(2)));
+        assertEquals(1, admission.getThrottledAddress());
+    }
+
+    @Test
+    public void throttlesGlobally() throws UnknownHostException {
+        AdmissionController admission = new AdmissionController(10, 10, 2, 0.001, 10);
+
+        assertTrue(admission.tryAdmit(address(1)));
+        assertTrue(admission.tryAdmit(address(2)));
+        assertFalse(admission.tryAdmit(address(3)));
+        assertEquals(1, admission.getThrottledGlobal());
+    }
+
+    @Test
+    public void rejectsWhenTooManyLoginsPending() throws UnknownHostException {
+        AdmissionController admission = new AdmissionController(10, 10, 100, 100, 1);
+
+        admission.loginStarted();
+        assertFalse(admission.tryAdmit(address(1)));
+        assertEquals(1, admission.getRejectedPending());
+
+        admission.loginFinished();
+        assertTrue(admission.tryAdmit(address(1)));
+    }
+
+    @Test
+    public void fallsBackToGlobalBucketWhenFull() throws UnknownHostException {
+        AdmissionController admission = new AdmissionController(1, 0.001, 3, 0.001, 10, 2);
+
+        assertTrue(admission.tryAdmit(address(1)));
+        assertTrue(admission.tryAdmit(address(2)));
+        assertEquals(2, admission.getTrackedAddresses());
+
+        // A third address isn't tracked, but the global bucket still limits it
+        assertTrue(admission.tryAdmit(address(3)));
+        assertFalse(admission.tryAdmit(address(4)));
+        assertEquals(2, admission.getTrackedAddresses());
+        assertEquals(2, admission.getUntracked());
+        assertEquals(1, admission.getThrottledGlobal());
+    }
+
+    @Test
+    public void cleanupKeepsRecentAddresses() throws UnknownHostException {
+        AdmissionController admission = new AdmissionController(2, 0.001, 100, 100, 10);
+
+        admission.tryAdmit(address(1));
+        admission.cleanup();
+
+        assertEquals(1, admission.getTrackedAddresses());
+    }
+
+    private static InetSocketAddress address(int host) throws UnknownHostException {
+        return new InetSocketAddress(InetAddress.getByAddress(new byte[]{10, 0, 0, (byte) host}), 19132);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class BackendAddressTest {
+
+    @Test
+    public void parsesHostAndPort() {
+        assertEquals(new BackendAddress("example.com", 19133), BackendAddress.parse(" example.com:19133 "));
+        assertEquals(new BackendAddress("example.com", BackendAddress.DEFAULT_PORT), BackendAddress.parse("example.com"));
+    }
+
+    @Test
+    public void parsesIpv6() {
+        assertEquals(new BackendAddress("::1", BackendAddress.DEFAULT_PORT), BackendAddress.parse("::1"));
+        assertEquals(new BackendAddress("::1", BackendAddress.DEFAULT_PORT), BackendAddress.parse("[::1]"));
+        assertEquals(new BackendAddress("::1", 19133), BackendAddress.parse("[::1]:19133"));
+    }
+
+    @Test
+    public void rejectsInvalidPorts() {
+        assertThrows(IllegalArgumentException.class, () -> BackendAddress.parse("example.com:abc"));
+        assertThrows(IllegalArgumentException.class, () -> BackendAddress.parse("example.com:0"));
+        assertThrows(IllegalArgumentException.class, () -> BackendAddress.parse("example.com:65536"));
+        assertThrows(IllegalArgumentException.class, () -> BackendAddress.parse("example.com:-1"));
+        assertThrows(IllegalArgumentException.class, () -> new BackendAddress("example.com", 70000));
+    }
+
+    @Test
+    public void rejectsMissingHost() {
+        assertThrows(IllegalArgumentException.class, () -> BackendAddress.parse(":19132"));
+    }
+
+    @Test
+    public void parsesListSkippingBlanks() {
+        assertEquals(List.of(new BackendAddress("a", 1), new BackendAddress("b", BackendAddress.DEFAULT_PORT)),
+                BackendAddress.parseList("a:1,\n ,b"));
+    }
+}
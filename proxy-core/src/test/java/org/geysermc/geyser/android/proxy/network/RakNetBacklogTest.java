@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RakNetBacklogTest {
+
+    private static final RakNetBacklog BACKLOG = new RakNetBacklog(FakeSession.class.getName());
+
+    @Test
+    public void countsQueuedAndUnacknowledged() {
+        FakeSession session = new FakeSession();
+        session.outgoingPackets = new ArrayDeque<>();
+        session.sentDatagrams = new HashMap<>();
+        assertTrue(BACKLOG.isAvailable());
+        assertEquals(0, BACKLOG.get(session));
+
+        session.outgoingPackets.add("a");
+        session.outgoingPackets.add("b");
+        session.sentDatagrams.put(1L, "c");
+        assertEquals(3, BACKLOG.get(session));
+    }
+
+    @Test
+    public void countsSessionNotConnectedYetAsEmpty() {
+        assertEquals(0, BACKLOG.get(new FakeSession()));
+    }
+
+    @Test
+    public void unknownForOtherConnections() {
+        assertEquals(-1, BACKLOG.get("not a session"));
+        assertEquals(-1, BACKLOG.get(null));
+    }
+
+    @Test
+    public void unavailableWithoutTheFields() {
+        RakNetBacklog missing = new RakNetBacklog(RakNetBacklogTest.class.getName());
+        assertFalse(missing.isAvailable());
+        assertEquals(-1, missing.get(new RakNetBacklogTest()));
+
+        assertFalse(new RakNetBacklog("org.example.Missing").isAvailable());
+    }
+
+    private static class FakeSession {
+        private Queue<String> outgoingPackets;
+        private Map<Long, String> sentDatagrams;
+    }
+}
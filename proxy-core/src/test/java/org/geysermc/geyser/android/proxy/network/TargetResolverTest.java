@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.network;
+
+import org.geysermc.geyser.android.proxy.ProxyLogger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class TargetResolverTest {
+
+    @Test
+    public void rejectsInvalidPort() {
+        assertThrows(IllegalArgumentException.class, () -> new TargetResolver("127.0.0.1", 0, new ProxyLogger()));
+        assertThrows(IllegalArgumentException.class, () -> new TargetResolver("127.0.0.1", 65536, new ProxyLogger()));
+    }
+
+    @Test
+    public void resolvesLiteral() {
+        TargetResolver resolver = new TargetResolver("127.0.0.1", 19132, new ProxyLogger());
+        assertFalse(resolver.isResolved());
+        assertEquals("127.0.0.1", resolver.getTransferAddress());
+
+        resolver.resolve();
+
+        assertTrue(resolver.isResolved());
+        assertEquals(1, resolver.getLookups());
+        assertEquals(0, resolver.getFailures());
+        assertEquals(19132, resolver.getAddress().getPort());
+    }
+
+    @Test
+    public void keepsUnresolvedAddressOnFailure() {
+        TargetResolver resolver = new TargetResolver("backend.invalid", 19132, new ProxyLogger());
+
+        resolver.resolve();
+
+        assertFalse(resolver.isResolved());
+        assertEquals(1, resolver.getFailures());
+        assertEquals("backend.invalid", resolver.getTransferAddress());
+        assertTrue(resolver.getAddress().isUnresolved());
+    }
+}
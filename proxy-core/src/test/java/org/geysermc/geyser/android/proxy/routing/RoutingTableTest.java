@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.routing;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.geysermc.geyser.android.proxy.Player;
+import org.geysermc.geyser.android.proxy.ProxyServer;
+import org.geysermc.geyser.android.proxy.network.BackendAddress;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class RoutingTableTest {
+
+    private static final List<String> RULES = List.of(
+            "# VIPs get their own server",
+            "xuid   2535400000000000 vip.example.com:19132",
+            "",
+            "name   Steve            10.0.0.5:19133",
+            "subnet 192.168.1.0/24   lan.example.com",
+            "os     switch           console.example.com",
+            "input  touch            mobile.example.com",
+            "device 13               console.example.com"
+    );
+
+    // Subnet rules need the player's connection, so lookups are checked without them
+    private static final List<String> PLAYER_RULES = RULES.stream()
+            .filter(rule -> !rule.startsWith("subnet"))
+            .toList();
+
+    @Test
+    public void compilesRules() {
+        RoutingTable table = RoutingTable.compile(RULES);
+
+        assertEquals(6, table.size());
+        assertEquals(Set.of(
+                new BackendAddress("vip.example.com", 19132),
+                new BackendAddress("10.0.0.5", 19133),
+                new BackendAddress("lan.example.com", BackendAddress.DEFAULT_PORT),
+                new BackendAddress("console.example.com", BackendAddress.DEFAULT_PORT),
+                new BackendAddress("mobile.example.com", BackendAddress.DEFAULT_PORT)
+        ), table.getTargets());
+    }
+
+    @Test
+    public void firstMatchingTypeWins() {
+        RoutingTable table = RoutingTable.compile(PLAYER_RULES);
+
+        // Switch player on touch with a VIP XUID
+        assertEquals("vip.example.com", table.lookup(player("2535400000000000", "Alex", 12, 2)).target().host());
+        assertEquals("10.0.0.5", table.lookup(player("1", "steve", 12, 2)).target().host());
+        assertEquals("console.example.com", table.lookup(player("1", "Alex", 12, 2)).target().host());
+        assertEquals("mobile.example.com", table.lookup(player("1", "Alex", 1, 2)).target().host());
+        assertNull(table.lookup(player("1", "Alex", 1, 1)));
+        assertNull(table.lookup(player("1", "Alex", 99, 99)));
+    }
+
+    @Test
+    public void sharesRoutesPerTarget() {
+        RoutingTable table = RoutingTable.compile(PLAYER_RULES);
+
+        assertSame(table.lookup(player("1", "Alex", 12, 0)), table.lookup(player("1", "Alex", 13, 0)));
+    }
+
+    @Test
+    public void reportsLineNumbers() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> RoutingTable.compile(List.of("xuid 1 a.example.com", "subnet cafe/16 b.example.com")));
+        assertTrue(e.getMessage(), e.getMessage().startsWith("Line 2: "));
+
+        assertThrows(IllegalArgumentException.class, () -> RoutingTable.compile(List.of("xuid 1")));
+        assertThrows(IllegalArgumentException.class, () -> RoutingTable.compile(List.of("os toaster a.example.com")));
+        assertThrows(IllegalArgumentException.class, () -> RoutingTable.compile(List.of("port 1 a.example.com")));
+        assertThrows(IllegalArgumentException.class, () -> RoutingTable.compile(List.of("xuid 1 a.example.com:0")));
+    }
+
+    @Test
+    public void emptyTableMatchesNothing() {
+        assertEquals(0, RoutingTable.EMPTY.size());
+        assertNull(RoutingTable.EMPTY.lookup(player("1", "Alex", 1, 1)));
+    }
+
+    private static Player player(String xuid, String name, int deviceOs, int inputMode) {
+        ObjectNode extraData = ProxyServer.OBJECT_MAPPER.createObjectNode();
+        extraData.put("XUID", xuid);
+        extraData.put("identity", UUID.randomUUID().toString());
+        extraData.put("displayName", name);
+        extraData.put("DeviceOS", deviceOs);
+        extraData.put("CurrentInputMode", inputMode);
+        return new Player(extraData, null, null);
+    }
+}
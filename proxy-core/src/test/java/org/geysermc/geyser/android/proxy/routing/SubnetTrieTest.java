@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020-2020 GeyserMC. http://geysermc.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ *
+ * @author GeyserMC
+ * @link https://github.com/GeyserMC/GeyserAndroid
+ */
+
+package org.geysermc.geyser.android.proxy.routing;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+public class SubnetTrieTest {
+
+    @Test
+    public void longestPrefixWins() throws UnknownHostException {
+        SubnetTrie<String> trie = new SubnetTrie<>();
+        trie.put("10.0.0.0/8", "wide");
+        trie.put("10.1.0.0/16", "narrow");
+        trie.put("10.1.2.3", "host");
+
+        assertEquals("wide", trie.get(address("10.2.0.1")));
+        assertEquals("narrow", trie.get(address("10.1.9.9")));
+        assertEquals("host", trie.get(address("10.1.2.3")));
+        assertNull(trie.get(address("11.0.0.1")));
+        assertEquals(3, trie.size());
+    }
+
+    @Test
+    public void zeroPrefixMatchesEverything() throws UnknownHostException {
+        SubnetTrie<String> trie = new SubnetTrie<>();
+        trie.put("0.0.0.0/0", "any");
+
+        assertEquals("any", trie.get(address("203.0.113.7")));
+        assertNull(trie.get(address("2001:db8::1")));
+    }
+
+    @Test
+    public void matchesIpv6() throws UnknownHostException {
+        SubnetTrie<String> trie = new SubnetTrie<>();
+        trie.put("2001:db8::/32", "doc");
+        trie.put("::1", "loopback");
+        trie.put("fe80:0:0:0:0:0:0:0/10", "link");
+        trie.put("64:ff9b::192.0.2.0/120", "nat64");
+
+        assertEquals("doc", trie.get(address("2001:db8:1234::1")));
+        assertEquals("loopback", trie.get(address("::1")));
+        assertEquals("link", trie.get(address("fe80::abcd")));
+        assertEquals("nat64", trie.get(address("64:ff9b::c000:2ff")));
+        assertNull(trie.get(address("2001:db9::1")));
+    }
+
+    @Test
+    public void storesMappedAddressesAsIpv4() throws UnknownHostException {
+        SubnetTrie<String> trie = new SubnetTrie<>();
+        trie.put("::ffff:192.168.1.1", "mapped");
+
+        assertEquals("mapped", trie.get(address("192.168.1.1")));
+    }
+
+    @Test
+    public void replacingKeepsSize() {
+        SubnetTrie<String> trie = new SubnetTrie<>();
+        trie.put("10.0.0.0/8", "a");
+        trie.put("10.0.0.0/8", "b");
+
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    public void rejectsNonLiterals() {
+        // All hex, so these used to reach a DNS lookup
+        for (String invalid : new String[]{"cafe", "beef/16", "deadbeef", "1234", "a.b.c.d"}) {
+            assertThrows(invalid, IllegalArgumentException.class, () -> new SubnetTrie<String>().put(invalid, "x"));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedAddresses() {
+        String[] invalid = {"", "1.2.3", "1.2.3.4.5", "256.0.0.1", "1..2.3", "1.2.3.4.", "0001.2.3.4",
+                "1:2:3:4:5:6:7", "1:2:3:4:5:6:7:8:9", "1::2::3", "12345::", ":1:2:3:4:5:6:7", "1:2:3:4:5:6:7:8:",
+                "1:2:3:4:5:6:7::8", "::1.2.3", "1.2.3.4::", "fe80::1%eth0", "::g"};
+        for (String address : invalid) {
+            assertThrows(address, IllegalArgumentException.class, () -> new SubnetTrie<String>().put(address, "x"));
+        }
+    }
+
+    @Test
+    public void rejectsInvalidPrefixes() {
+        assertThrows(IllegalArgumentException.class, () -> new SubnetTrie<String>().put("10.0.0.0/33", "x"));
+        assertThrows(IllegalArgumentException.class, () -> new SubnetTrie<String>().put("10.0.0.0/-1", "x"));
+        assertThrows(IllegalArgumentException.class, () -> new SubnetTrie<String>().put("::/129", "x"));
+        assertThrows(IllegalArgumentException.class, () -> new SubnetTrie<String>().put("10.0.0.0/a", "x"));
+    }
+
+    private static InetAddress address(String literal) throws UnknownHostException {
+        return InetAddress.getByName(literal);
+    }
+}